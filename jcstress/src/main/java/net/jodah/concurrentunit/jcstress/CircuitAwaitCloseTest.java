@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Mode;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.Signal;
+import org.openjdk.jcstress.annotations.State;
+
+import net.jodah.concurrentunit.internal.ReentrantCircuit;
+
+/**
+ * Closes an open circuit while a thread awaits it, exercising the plain state write in the circuit's release.
+ */
+@JCStressTest(Mode.Termination)
+@Description("Closing a circuit must release a thread awaiting it")
+@Outcome(id = "TERMINATED", expect = ACCEPTABLE, desc = "The close released the await")
+@Outcome(id = "STALE", expect = FORBIDDEN, desc = "The close was lost and the await blocked")
+@State
+public class CircuitAwaitCloseTest {
+  private final ReentrantCircuit circuit = new ReentrantCircuit();
+
+  public CircuitAwaitCloseTest() {
+    circuit.open();
+  }
+
+  @Actor
+  public void actor() {
+    try {
+      circuit.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Signal
+  public void signal() {
+    circuit.close();
+  }
+}
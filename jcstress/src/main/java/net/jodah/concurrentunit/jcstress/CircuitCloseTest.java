@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import net.jodah.concurrentunit.internal.ReentrantCircuit;
+
+/**
+ * Closes an open circuit while another thread observes it.
+ */
+@JCStressTest
+@Description("A closed circuit must be observed as closed once the close has completed")
+@Outcome(id = "false, true", expect = ACCEPTABLE, desc = "The observer ran before the close")
+@Outcome(id = "true, true", expect = ACCEPTABLE, desc = "The observer ran after the close")
+@Outcome(id = ".*, false", expect = FORBIDDEN, desc = "The close was lost")
+@State
+public class CircuitCloseTest {
+  private final ReentrantCircuit circuit = new ReentrantCircuit();
+
+  public CircuitCloseTest() {
+    circuit.open();
+  }
+
+  @Actor
+  public void actor1() {
+    circuit.close();
+  }
+
+  @Actor
+  public void actor2(ZZ_Result r) {
+    r.r1 = circuit.isClosed();
+  }
+
+  @Arbiter
+  public void arbiter(ZZ_Result r) {
+    r.r2 = circuit.isClosed();
+  }
+}
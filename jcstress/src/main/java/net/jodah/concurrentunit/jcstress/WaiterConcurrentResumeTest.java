@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import net.jodah.concurrentunit.Waiter;
+
+/**
+ * Resumes a waiter from two threads before it is awaited, which must count both resumes.
+ */
+@JCStressTest
+@Description("Concurrent resumes before an await must all be counted")
+@Outcome(id = "1", expect = ACCEPTABLE, desc = "Both resumes were counted")
+@Outcome(id = "0", expect = FORBIDDEN, desc = "A resume was lost")
+@State
+public class WaiterConcurrentResumeTest {
+  private final Waiter waiter = new Waiter();
+
+  @Actor
+  public void actor1() {
+    waiter.resume();
+  }
+
+  @Actor
+  public void actor2() {
+    waiter.resume();
+  }
+
+  @Arbiter
+  public void arbiter(I_Result r) {
+    try {
+      waiter.await(100, 2);
+      r.r1 = 1;
+    } catch (TimeoutException e) {
+      r.r1 = 0;
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.jcstress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import net.jodah.concurrentunit.Waiter;
+
+/**
+ * Races a rethrow against a resume, after which the failure must be thrown by the next await only.
+ */
+@JCStressTest
+@Description("A rethrown failure must be thrown by the next await and not by later awaits")
+@Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "The failure was thrown once")
+@Outcome(id = "0, .*", expect = FORBIDDEN, desc = "The failure was lost")
+@Outcome(id = "1, 1", expect = FORBIDDEN, desc = "A stale failure was thrown again")
+@State
+public class WaiterRethrowResumeTest {
+  private static final RuntimeException FAILURE = new RuntimeException("failed");
+  private final Waiter waiter = new Waiter();
+
+  @Actor
+  public void actor1() {
+    try {
+      waiter.rethrow(FAILURE);
+    } catch (RuntimeException expected) {
+    }
+  }
+
+  @Actor
+  public void actor2() {
+    waiter.resume();
+  }
+
+  @Arbiter
+  public void arbiter(II_Result r) {
+    r.r1 = awaitFailed();
+    waiter.resume();
+    r.r2 = awaitFailed();
+  }
+
+  private int awaitFailed() {
+    try {
+      waiter.await(100);
+      return 0;
+    } catch (RuntimeException e) {
+      return e == FAILURE ? 1 : -1;
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+}
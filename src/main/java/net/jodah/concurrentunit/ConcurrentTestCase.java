@@ -15,6 +15,8 @@
  */
 package net.jodah.concurrentunit;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -33,6 +35,13 @@ public abstract class ConcurrentTestCase {
     waiter.assertEquals(expected, actual);
   }
 
+  /**
+   * @see Waiter#assertLinearizable(SequentialModel, History)
+   */
+  public <S, I, O> void threadAssertLinearizable(SequentialModel<S, I, O> model, History<I, O> history) {
+    waiter.assertLinearizable(model, history);
+  }
+
   /**
    * @see Waiter#assertTrue(boolean)
    */
@@ -124,10 +133,53 @@ public abstract class ConcurrentTestCase {
     waiter.await(delay, timeUnit, expectedResumes);
   }
 
+  /**
+   * @see Waiter#awaitTasks(long, TimeUnit)
+   */
+  protected void awaitTasks(long delay, TimeUnit timeUnit) throws TimeoutException, InterruptedException {
+    waiter.awaitTasks(delay, timeUnit);
+  }
+
+  /**
+   * @see Waiter#awaitValues(long, int)
+   */
+  protected <T> List<T> awaitValues(long delay, int expectedResumes) throws TimeoutException, InterruptedException {
+    return waiter.awaitValues(delay, expectedResumes);
+  }
+
+  /**
+   * @see Waiter#awaitValues(long, TimeUnit, int)
+   */
+  protected <T> List<T> awaitValues(long delay, TimeUnit timeUnit, int expectedResumes)
+      throws TimeoutException, InterruptedException {
+    return waiter.awaitValues(delay, timeUnit, expectedResumes);
+  }
+
   /**
    * @see Waiter#resume()
    */
   protected void resume() {
     waiter.resume();
   }
+
+  /**
+   * @see Waiter#resume(Object, long)
+   */
+  protected void resume(Object key, long sequence) {
+    waiter.resume(key, sequence);
+  }
+
+  /**
+   * @see Waiter#resumeWith(Object)
+   */
+  protected <T> void resumeWith(T value) {
+    waiter.resumeWith(value);
+  }
+
+  /**
+   * @see Waiter#wrap(ExecutorService)
+   */
+  protected ExecutorService wrap(ExecutorService executor) {
+    return waiter.wrap(executor);
+  }
 }
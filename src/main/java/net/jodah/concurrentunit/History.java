@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A history of operations invoked concurrently on an object, recorded for checking with a
+ * {@link LinearizabilityChecker}. Each thread records its operations into its own buffer, so recording does not
+ * introduce synchronization between the threads under test.
+ * <p>
+ * Invoke and response times are taken from {@link System#nanoTime()}. Operations whose times are equal are treated as
+ * overlapping, which can only make the checker more permissive. The history should only be checked after all recording
+ * threads have finished, such as after they have {@link Waiter#resume() resumed} an awaited {@link Waiter}.
+ *
+ * @author Jonathan Halterman
+ * @param <I> operation input type
+ * @param <O> operation output type
+ */
+public class History<I, O> {
+  private final Collection<List<Call<I, O>>> buffers = new ConcurrentLinkedQueue<List<Call<I, O>>>();
+  private final ThreadLocal<List<Call<I, O>>> buffer = new ThreadLocal<List<Call<I, O>>>() {
+    @Override
+    protected List<Call<I, O>> initialValue() {
+      List<Call<I, O>> calls = new ArrayList<Call<I, O>>();
+      buffers.add(calls);
+      return calls;
+    }
+  };
+
+  /**
+   * Records the invocation of an operation with the {@code input} by the current thread, returning a call that must be
+   * {@link Call#respond(Object) responded} to when the operation completes.
+   */
+  public Call<I, O> invoke(I input) {
+    Call<I, O> call = new Call<I, O>(input, Thread.currentThread().getName());
+    buffer.get().add(call);
+    call.invokeTime = System.nanoTime();
+    return call;
+  }
+
+  /**
+   * Returns the calls recorded by all threads.
+   */
+  public List<Call<I, O>> calls() {
+    List<Call<I, O>> calls = new ArrayList<Call<I, O>>();
+    for (List<Call<I, O>> threadCalls : buffers)
+      calls.addAll(threadCalls);
+    return calls;
+  }
+
+  /**
+   * An operation recorded in a {@link History}.
+   *
+   * @param <I> operation input type
+   * @param <O> operation output type
+   */
+  public static final class Call<I, O> {
+    private final I input;
+    private final String threadName;
+    private O output;
+    private long invokeTime;
+    private long responseTime;
+    private boolean completed;
+
+    Call(I input, String threadName) {
+      this.input = input;
+      this.threadName = threadName;
+    }
+
+    /**
+     * Records the completion of the operation with the {@code output}.
+     *
+     * @throws IllegalStateException if the call was already responded to
+     */
+    public void respond(O output) {
+      long time = System.nanoTime();
+      if (completed)
+        throw new IllegalStateException("Call was already responded to");
+      this.output = output;
+      this.responseTime = time;
+      this.completed = true;
+    }
+
+    /**
+     * Returns the operation's input.
+     */
+    public I getInput() {
+      return input;
+    }
+
+    /**
+     * Returns the operation's output, or null if it has not completed.
+     */
+    public O getOutput() {
+      return output;
+    }
+
+    /**
+     * Returns whether the operation has completed.
+     */
+    public boolean isCompleted() {
+      return completed;
+    }
+
+    long getInvokeTime() {
+      return invokeTime;
+    }
+
+    long getResponseTime() {
+      return responseTime;
+    }
+
+    @Override
+    public String toString() {
+      return threadName + ": " + input + (completed ? " -> " + output : " (pending)");
+    }
+  }
+}
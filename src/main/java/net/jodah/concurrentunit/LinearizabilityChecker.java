@@ -0,0 +1,242 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks whether a {@link History} of concurrent operations is linearizable with respect to a {@link SequentialModel}:
+ * whether every operation can be assigned a point between its invocation and response at which it takes effect,
+ * such that the resulting sequence of operations is legal according to the model.
+ * <p>
+ * The check uses the Wing &amp; Gong search with Lowe's state caching, and checks each of the model's
+ * {@link SequentialModel#partition(Object) partitions} independently (P-compositionality), which keeps the search
+ * small when operations on different partitions are independent.
+ *
+ * @author Jonathan Halterman
+ */
+public final class LinearizabilityChecker {
+  private static final String VIOLATION_MESSAGE = "History is not linearizable%s, %s";
+
+  private LinearizabilityChecker() {
+  }
+
+  /**
+   * Returns whether the {@code history} is linearizable with respect to the {@code model}.
+   *
+   * @throws IllegalStateException if the history contains operations that have not completed
+   */
+  public static <S, I, O> boolean isLinearizable(SequentialModel<S, I, O> model, History<I, O> history) {
+    return check(model, history) == null;
+  }
+
+  /**
+   * Returns a description of the violation if the {@code history} is not linearizable with respect to the
+   * {@code model}, else null.
+   */
+  static <S, I, O> String check(SequentialModel<S, I, O> model, History<I, O> history) {
+    Map<Object, List<History.Call<I, O>>> partitions = new LinkedHashMap<Object, List<History.Call<I, O>>>();
+    for (History.Call<I, O> call : history.calls()) {
+      if (!call.isCompleted())
+        throw new IllegalStateException("History contains an operation that has not completed: " + call);
+      Object partition = model.partition(call.getInput());
+      List<History.Call<I, O>> calls = partitions.get(partition);
+      if (calls == null)
+        partitions.put(partition, calls = new ArrayList<History.Call<I, O>>());
+      calls.add(call);
+    }
+
+    for (Map.Entry<Object, List<History.Call<I, O>>> partition : partitions.entrySet()) {
+      String violation = new Search<S, I, O>(model, partition.getValue()).run();
+      if (violation != null)
+        return String.format(VIOLATION_MESSAGE,
+            partition.getKey() == null ? "" : " for partition " + partition.getKey(), violation);
+    }
+    return null;
+  }
+
+  /**
+   * An invocation or response of a call, linked into a list ordered by time.
+   */
+  private static final class Entry<I, O> {
+    final History.Call<I, O> call;
+    final int id;
+    final long time;
+    final boolean isInvoke;
+    Entry<I, O> match;
+    Entry<I, O> prev;
+    Entry<I, O> next;
+
+    Entry(History.Call<I, O> call, int id, long time, boolean isInvoke) {
+      this.call = call;
+      this.id = id;
+      this.time = time;
+      this.isInvoke = isInvoke;
+    }
+
+    /**
+     * Removes the invocation and its response from the list.
+     */
+    void lift() {
+      prev.next = next;
+      if (next != null)
+        next.prev = prev;
+      match.prev.next = match.next;
+      if (match.next != null)
+        match.next.prev = match.prev;
+    }
+
+    /**
+     * Reinserts the invocation and its response into the list, in the reverse order they were lifted.
+     */
+    void unlift() {
+      match.prev.next = match;
+      if (match.next != null)
+        match.next.prev = match;
+      prev.next = this;
+      if (next != null)
+        next.prev = this;
+    }
+  }
+
+  private static final class Search<S, I, O> {
+    private final SequentialModel<S, I, O> model;
+    private final Entry<I, O> head = new Entry<I, O>(null, -1, Long.MIN_VALUE, false);
+
+    Search(SequentialModel<S, I, O> model, List<History.Call<I, O>> calls) {
+      this.model = model;
+
+      List<Entry<I, O>> entries = new ArrayList<Entry<I, O>>(calls.size() * 2);
+      for (int i = 0; i < calls.size(); i++) {
+        History.Call<I, O> call = calls.get(i);
+        Entry<I, O> invoke = new Entry<I, O>(call, i, call.getInvokeTime(), true);
+        Entry<I, O> response = new Entry<I, O>(call, i, call.getResponseTime(), false);
+        invoke.match = response;
+        response.match = invoke;
+        entries.add(invoke);
+        entries.add(response);
+      }
+
+      // Invocations sort before responses at the same time, treating such operations as overlapping
+      Collections.sort(entries, new Comparator<Entry<I, O>>() {
+        public int compare(Entry<I, O> a, Entry<I, O> b) {
+          if (a.time != b.time)
+            return a.time < b.time ? -1 : 1;
+          return a.isInvoke == b.isInvoke ? 0 : a.isInvoke ? -1 : 1;
+        }
+      });
+
+      Entry<I, O> prev = head;
+      for (Entry<I, O> entry : entries) {
+        prev.next = entry;
+        entry.prev = prev;
+        prev = entry;
+      }
+    }
+
+    /**
+     * Returns a description of the violation, else null if the calls are linearizable.
+     */
+    String run() {
+      Set<CacheKey> cache = new HashSet<CacheKey>();
+      List<Entry<I, O>> stack = new ArrayList<Entry<I, O>>();
+      List<S> states = new ArrayList<S>();
+      List<Entry<I, O>> longest = new ArrayList<Entry<I, O>>();
+      BitSet linearized = new BitSet();
+      S state = model.initialState();
+      Entry<I, O> entry = head.next;
+
+      while (head.next != null) {
+        if (entry.isInvoke) {
+          S next = model.step(state, entry.call.getInput(), entry.call.getOutput());
+          if (next != null) {
+            BitSet candidate = (BitSet) linearized.clone();
+            candidate.set(entry.id);
+            if (cache.add(new CacheKey(candidate, next))) {
+              stack.add(entry);
+              states.add(state);
+              if (stack.size() > longest.size())
+                longest = new ArrayList<Entry<I, O>>(stack);
+              state = next;
+              linearized.set(entry.id);
+              entry.lift();
+              entry = head.next;
+              continue;
+            }
+          }
+          entry = entry.next;
+        } else {
+          // A response was reached before its invocation could be linearized, so backtrack
+          if (stack.isEmpty())
+            return describe(longest);
+          entry = stack.remove(stack.size() - 1);
+          state = states.remove(states.size() - 1);
+          linearized.clear(entry.id);
+          entry.unlift();
+          entry = entry.next;
+        }
+      }
+
+      return null;
+    }
+
+    private String describe(List<Entry<I, O>> longest) {
+      List<History.Call<I, O>> prefix = new ArrayList<History.Call<I, O>>();
+      BitSet ids = new BitSet();
+      for (Entry<I, O> entry : longest) {
+        prefix.add(entry.call);
+        ids.set(entry.id);
+      }
+
+      List<History.Call<I, O>> remaining = new ArrayList<History.Call<I, O>>();
+      for (Entry<I, O> entry = head.next; entry != null; entry = entry.next)
+        if (entry.isInvoke && !ids.get(entry.id))
+          remaining.add(entry.call);
+      return "longest linearizable prefix: " + prefix + ", remaining operations: " + remaining;
+    }
+  }
+
+  private static final class CacheKey {
+    final BitSet linearized;
+    final Object state;
+
+    CacheKey(BitSet linearized, Object state) {
+      this.linearized = linearized;
+      this.state = state;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CacheKey))
+        return false;
+      CacheKey other = (CacheKey) o;
+      return linearized.equals(other.linearized) && state.equals(other.state);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * linearized.hashCode() + state.hashCode();
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues operations against a system under test on an intended schedule, regardless of how quickly the system
+ * responds, and waits for them to complete using a {@link Waiter}.
+ * <p>
+ * Latencies are measured from the time each operation was <i>intended</i> to start rather than the time it actually
+ * started, which corrects for coordinated omission: when the system under test stalls, operations that should have
+ * been issued during the stall are charged for the time they spent waiting to be issued.
+ *
+ * @author Jonathan Halterman
+ */
+public class LoadDriver {
+  private static final String TIMEOUT_MESSAGE = "Load test timed out while waiting for outstanding operations, %s";
+
+  private final Executor executor;
+  private final long intervalNanos;
+  private final Random random;
+
+  /**
+   * An operation issued by the driver.
+   */
+  public interface Operation {
+    /**
+     * Performs the operation, calling {@link Call#complete()} once the operation completes. Failures thrown from this
+     * method, or passed to {@link Call#fail(Throwable)}, are rethrown from {@link LoadDriver#run}.
+     */
+    void perform(Call call) throws Throwable;
+  }
+
+  /**
+   * Creates a driver that issues operations at a constant {@code operationsPerSecond}, performing them on the
+   * {@code executor}.
+   */
+  public static LoadDriver constantRate(double operationsPerSecond, Executor executor) {
+    return new LoadDriver(operationsPerSecond, executor, null);
+  }
+
+  /**
+   * Creates a driver that issues operations with Poisson distributed arrivals averaging {@code operationsPerSecond},
+   * performing them on the {@code executor}.
+   */
+  public static LoadDriver poissonRate(double operationsPerSecond, Executor executor) {
+    return new LoadDriver(operationsPerSecond, executor, new Random());
+  }
+
+  private LoadDriver(double operationsPerSecond, Executor executor, Random random) {
+    if (operationsPerSecond <= 0)
+      throw new IllegalArgumentException("operationsPerSecond must be > 0");
+    if (executor == null)
+      throw new NullPointerException("executor");
+    this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / operationsPerSecond));
+    this.executor = executor;
+    this.random = random;
+  }
+
+  /**
+   * Issues {@code operations} operations on the driver's schedule and waits until the {@code delay} has elapsed, all
+   * operations have completed, or an operation has failed.
+   *
+   * @return a report of the completed operations
+   * @throws IllegalArgumentException if {@code operations} is negative
+   * @throws TimeoutException if the operation times out while waiting, with the partial report in its message
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public Report run(int operations, final Operation operation, long delay, TimeUnit timeUnit)
+      throws TimeoutException, InterruptedException {
+    if (operations < 0)
+      throw new IllegalArgumentException("operations must be >= 0");
+    if (operations == 0)
+      return new Report(0, 0, 0, 0, intervalNanos, new long[0], new long[0]);
+
+    final Run run = new Run(operations, intendedStartTimes(operations));
+    Thread issuer = new Thread(new Runnable() {
+      public void run() {
+        run.issue(operation);
+      }
+    }, "concurrentunit-load-driver");
+    issuer.setDaemon(true);
+    issuer.start();
+
+    try {
+      run.waiter.await(delay, timeUnit, operations);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(String.format(TIMEOUT_MESSAGE, run.report()));
+    } finally {
+      run.stopped = true;
+      issuer.interrupt();
+    }
+
+    return run.report();
+  }
+
+  /**
+   * Returns the intended start times, in nanoseconds relative to the start of the run.
+   */
+  private long[] intendedStartTimes(int operations) {
+    long[] offsets = new long[operations];
+    long offset = 0;
+    for (int i = 0; i < operations; i++) {
+      offsets[i] = offset;
+      if (random == null)
+        offset += intervalNanos;
+      else
+        offset += (long) (-Math.log(1 - random.nextDouble()) * intervalNanos);
+    }
+    return offsets;
+  }
+
+  /**
+   * A single issued operation, used to signal its completion.
+   */
+  public static final class Call {
+    private final Run run;
+    private final int index;
+    private final long intendedStart;
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private long actualStart;
+
+    Call(Run run, int index, long intendedStart) {
+      this.run = run;
+      this.index = index;
+      this.intendedStart = intendedStart;
+    }
+
+    /**
+     * Returns the index of the operation within the run.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    /**
+     * Records the completion of the operation. Calls after the first are ignored.
+     */
+    public void complete() {
+      if (!completed.compareAndSet(false, true))
+        return;
+      long now = System.nanoTime();
+      run.latencies[index] = Math.max(1, now - intendedStart);
+      run.serviceTimes[index] = now - actualStart;
+      run.completed.incrementAndGet();
+      run.waiter.resume();
+    }
+
+    /**
+     * Fails the run with the {@code failure}, which is rethrown from {@link LoadDriver#run}.
+     */
+    public void fail(Throwable failure) {
+      run.waiter.recordFailure(failure);
+    }
+  }
+
+  private final class Run {
+    final Waiter waiter = new Waiter();
+    final AtomicInteger completed = new AtomicInteger();
+    final long[] offsets;
+    final long[] latencies;
+    final long[] serviceTimes;
+    volatile boolean stopped;
+    volatile int issued;
+    final long startTime = System.nanoTime();
+
+    Run(int operations, long[] offsets) {
+      this.offsets = offsets;
+      this.latencies = new long[operations];
+      this.serviceTimes = new long[operations];
+    }
+
+    void issue(final Operation operation) {
+      for (int i = 0; i < offsets.length && !stopped; i++) {
+        final long intendedStart = startTime + offsets[i];
+        for (long remaining = intendedStart - System.nanoTime(); remaining > 0 && !stopped; remaining = intendedStart
+            - System.nanoTime())
+          LockSupport.parkNanos(remaining);
+
+        final Call call = new Call(this, i, intendedStart);
+        issued = i + 1;
+        try {
+          executor.execute(new Runnable() {
+            public void run() {
+              call.actualStart = System.nanoTime();
+              try {
+                operation.perform(call);
+              } catch (Throwable t) {
+                call.fail(t);
+              }
+            }
+          });
+        } catch (Throwable t) {
+          call.fail(t);
+          return;
+        }
+      }
+    }
+
+    Report report() {
+      int count = completed.get();
+      long[] corrected = new long[count];
+      long[] service = new long[count];
+      int c = 0;
+      for (int i = 0; i < latencies.length && c < count; i++) {
+        if (latencies[i] != 0) {
+          corrected[c] = latencies[i];
+          service[c++] = serviceTimes[i];
+        }
+      }
+
+      return new Report(offsets.length, issued, c, System.nanoTime() - startTime, intervalNanos,
+          Arrays.copyOf(corrected, c), Arrays.copyOf(service, c));
+    }
+  }
+
+  /**
+   * A summary of the operations performed by a {@link LoadDriver} run. Latencies are corrected for coordinated
+   * omission and measured from each operation's intended start time, while service times are measured from each
+   * operation's actual start time.
+   */
+  public static final class Report {
+    private final int expected;
+    private final int issued;
+    private final int completed;
+    private final long elapsedNanos;
+    private final long intervalNanos;
+    private final long[] latencies;
+    private final long[] serviceTimes;
+
+    Report(int expected, int issued, int completed, long elapsedNanos, long intervalNanos, long[] latencies,
+        long[] serviceTimes) {
+      this.expected = expected;
+      this.issued = issued;
+      this.completed = completed;
+      this.elapsedNanos = elapsedNanos;
+      this.intervalNanos = intervalNanos;
+      this.latencies = latencies;
+      this.serviceTimes = serviceTimes;
+      Arrays.sort(latencies);
+      Arrays.sort(serviceTimes);
+    }
+
+    /**
+     * Returns the number of operations the run was expected to perform.
+     */
+    public int getExpectedOperations() {
+      return expected;
+    }
+
+    /**
+     * Returns the number of operations that were issued.
+     */
+    public int getIssuedOperations() {
+      return issued;
+    }
+
+    /**
+     * Returns the number of operations that completed.
+     */
+    public int getCompletedOperations() {
+      return completed;
+    }
+
+    /**
+     * Returns the elapsed time of the run in the {@code timeUnit}.
+     */
+    public long getElapsed(TimeUnit timeUnit) {
+      return timeUnit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the intended rate of operations per second.
+     */
+    public double getIntendedRate() {
+      return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    /**
+     * Returns the achieved rate of completed operations per second.
+     */
+    public double getAchievedRate() {
+      return elapsedNanos == 0 ? 0 : completed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Returns the latency at the {@code percentile}, between 0 and 100, corrected for coordinated omission.
+     */
+    public long getLatency(double percentile, TimeUnit timeUnit) {
+      return timeUnit.convert(percentile(latencies, percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the service time at the {@code percentile}, between 0 and 100, which is not corrected for coordinated
+     * omission.
+     */
+    public long getServiceTime(double percentile, TimeUnit timeUnit) {
+      return timeUnit.convert(percentile(serviceTimes, percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the maximum latency, corrected for coordinated omission.
+     */
+    public long getMaxLatency(TimeUnit timeUnit) {
+      return getLatency(100, timeUnit);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+      if (percentile < 0 || percentile > 100)
+        throw new IllegalArgumentException("percentile must be between 0 and 100");
+      if (sorted.length == 0)
+        return 0;
+      int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+      return sorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public String toString() {
+      TimeUnit us = TimeUnit.MICROSECONDS;
+      return String.format(
+          "expectedOperations: %d, issuedOperations: %d, completedOperations: %d, intendedRate: %.1f/s, "
+              + "achievedRate: %.1f/s, latency p50: %dus, p90: %dus, p99: %dus, p99.9: %dus, max: %dus, "
+              + "serviceTime p50: %dus, p99: %dus, max: %dus",
+          expected, issued, completed, getIntendedRate(), getAchievedRate(), getLatency(50, us),
+          getLatency(90, us), getLatency(99, us), getLatency(99.9, us), getMaxLatency(us), getServiceTime(50, us),
+          getServiceTime(99, us), getServiceTime(100, us));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU time and allocated bytes of the threads that interacted with a {@link Waiter} during an await.
+ *
+ * @author Jonathan Halterman
+ * @see Waiter#accountResources(boolean)
+ */
+public final class ResourceUsage {
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
+  private final int threads;
+
+  ResourceUsage(long cpuTimeNanos, long allocatedBytes, int threads) {
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.threads = threads;
+  }
+
+  /**
+   * Returns the CPU time consumed by the accounted threads in the {@code timeUnit}, or -1 if the JVM does not support
+   * measuring thread CPU time.
+   */
+  public long getCpuTime(TimeUnit timeUnit) {
+    return cpuTimeNanos == -1 ? -1 : timeUnit.convert(cpuTimeNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the bytes allocated by the accounted threads, or -1 if the JVM does not support measuring thread
+   * allocations.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Returns the number of threads that were accounted for, including the awaiting thread.
+   */
+  public int getThreadCount() {
+    return threads;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("cpuTime: %dms, allocatedBytes: %d, threads: %d", getCpuTime(TimeUnit.MILLISECONDS),
+        allocatedBytes, threads);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+/**
+ * A sequential specification of a concurrent object, against which a {@link History} of concurrent operations is
+ * checked for linearizability.
+ * <p>
+ * States must be non-null, immutable and implement {@code equals} and {@code hashCode}, since the checker backtracks
+ * over states and caches the states it has already explored.
+ *
+ * @author Jonathan Halterman
+ * @param <S> state type
+ * @param <I> operation input type
+ * @param <O> operation output type
+ * @see LinearizabilityChecker
+ */
+public abstract class SequentialModel<S, I, O> {
+  /**
+   * Returns the initial state of the object.
+   */
+  public abstract S initialState();
+
+  /**
+   * Applies the operation described by the {@code input} to the {@code state}, returning the resulting state if
+   * {@code output} is a legal output of the operation in the {@code state}, else null.
+   */
+  public abstract S step(S state, I input, O output);
+
+  /**
+   * Returns the partition that an operation with the {@code input} belongs to, such as the key of a map operation.
+   * Operations in different partitions must not affect each other, allowing each partition to be checked
+   * independently. Returns null by default, placing all operations in a single partition.
+   */
+  public Object partition(I input) {
+    return null;
+  }
+}
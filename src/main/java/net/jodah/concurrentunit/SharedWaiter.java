@@ -0,0 +1,243 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import net.jodah.concurrentunit.internal.SharedMemory;
+
+/**
+ * A waiter that can be resumed or failed from other processes, such as forked worker JVMs. The resume counter and
+ * failure state are kept in a memory-mapped file, which each process opens by constructing a {@code SharedWaiter} for
+ * the same file, so signals are exchanged through shared memory without a network stack.
+ * <p>
+ * Since processes cannot wake each other through shared memory, an {@code await} briefly spins before parking with a
+ * backoff of up to 1 millisecond between checks.
+ * <p>
+ * All processes sharing a file must run on Java 11+, or all on earlier versions. Java 11+ accesses the file with
+ * lock-free atomic operations while earlier versions use file locks, and the two do not exclude each other, so mixing
+ * them could lose resumes or corrupt failures. The file records which is in use, and a {@code SharedWaiter} fails to
+ * open a file that was opened by the other.
+ *
+ * @author Jonathan Halterman
+ */
+public class SharedWaiter implements Closeable {
+  private static final String TIMEOUT_MESSAGE = "Test timed out while waiting for an expected result, expectedResumes: %d, actualResumes: %d";
+  private static final String VARIANT_MESSAGE = "%s is shared by a process using %s access, but this process uses %s access. All processes sharing a SharedWaiter must run on Java 11+, or all on earlier versions";
+  private static final String CHARSET = "UTF-8";
+  private static final int SIZE = 4096;
+  private static final int RESUMES_OFFSET = 0;
+  private static final int FAILURE_STATE_OFFSET = 8;
+  private static final int FAILURE_LENGTH_OFFSET = 12;
+  private static final int VARIANT_OFFSET = 16;
+  private static final int FAILURE_MESSAGE_OFFSET = 20;
+  private static final int MAX_FAILURE_LENGTH = SIZE - FAILURE_MESSAGE_OFFSET;
+  private static final int NO_FAILURE = 0;
+  private static final int FAILURE_WRITING = 1;
+  private static final int FAILURE_PUBLISHED = 2;
+  private static final int SPINS = 1000;
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final File file;
+  private final RandomAccessFile raf;
+  private final SharedMemory memory;
+  private long consumedResumes;
+
+  /**
+   * Creates a new SharedWaiter for the {@code file}, creating the file if it does not exist. The awaiting process
+   * should use a new or empty file, and pass its path to the processes that will resume it.
+   *
+   * @throws IOException if the file cannot be opened or mapped
+   * @throws IllegalStateException if the file is shared by a process running on Java 11+ while this process is not,
+   *           or vice versa
+   */
+  public SharedWaiter(File file) throws IOException {
+    this.file = file;
+    this.raf = new RandomAccessFile(file, "rw");
+    try {
+      if (raf.length() < SIZE)
+        raf.setLength(SIZE);
+      memory = new SharedMemory(raf.getChannel(), SIZE);
+      if (!memory.compareAndSetInt(VARIANT_OFFSET, 0, SharedMemory.VARIANT)) {
+        int variant = memory.getIntVolatile(VARIANT_OFFSET);
+        if (variant != SharedMemory.VARIANT)
+          throw new IllegalStateException(
+              String.format(VARIANT_MESSAGE, file, describe(variant), describe(SharedMemory.VARIANT)));
+      }
+    } catch (IOException e) {
+      raf.close();
+      throw e;
+    } catch (RuntimeException e) {
+      raf.close();
+      throw e;
+    }
+    consumedResumes = memory.getLongVolatile(RESUMES_OFFSET);
+  }
+
+  /**
+   * Returns the file backing the waiter.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, {@link #resume()} is called {@code expectedResumes} times by any
+   * process, or the test is failed.
+   *
+   * @param delay Delay to wait for in milliseconds
+   * @param expectedResumes Number of times {@link #resume()} is expected to be called before the awaiting thread is
+   *          resumed
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public void await(long delay, int expectedResumes) throws TimeoutException, InterruptedException {
+    await(delay, TimeUnit.MILLISECONDS, expectedResumes);
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, {@link #resume()} is called {@code expectedResumes} times by any
+   * process, or the test is failed.
+   *
+   * @param delay Delay to wait for, or 0 to wait indefinitely
+   * @param timeUnit TimeUnit to delay for
+   * @param expectedResumes Number of times {@link #resume()} is expected to be called before the awaiting thread is
+   *          resumed
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public void await(long delay, TimeUnit timeUnit, int expectedResumes) throws TimeoutException, InterruptedException {
+    long target = consumedResumes + expectedResumes;
+    long deadline = System.nanoTime() + timeUnit.toNanos(delay);
+    long parkNanos = 1000;
+
+    try {
+      for (int i = 0;; i++) {
+        if (memory.getIntVolatile(FAILURE_STATE_OFFSET) == FAILURE_PUBLISHED)
+          throw takeFailure();
+        if (memory.getLongVolatile(RESUMES_OFFSET) >= target)
+          return;
+        if (Thread.interrupted())
+          throw new InterruptedException();
+        if (delay != 0 && System.nanoTime() - deadline >= 0) {
+          long actualResumes = expectedResumes - (target - memory.getLongVolatile(RESUMES_OFFSET));
+          throw new TimeoutException(String.format(TIMEOUT_MESSAGE, expectedResumes, actualResumes));
+        }
+
+        if (i < SPINS)
+          Thread.yield();
+        else {
+          LockSupport.parkNanos(parkNanos);
+          parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+        }
+      }
+    } finally {
+      consumedResumes = memory.getLongVolatile(RESUMES_OFFSET);
+    }
+  }
+
+  /**
+   * Resumes the awaiting process when the expected number of {@link #resume()} calls have occurred.
+   */
+  public void resume() {
+    memory.getAndAddLong(RESUMES_OFFSET, 1);
+  }
+
+  /**
+   * Fails the current test for the given {@code reason}.
+   *
+   * @throws AssertionError
+   */
+  public void fail(String reason) {
+    fail(new AssertionError(reason));
+  }
+
+  /**
+   * Fails the current test with the given {@code reason}, publishing its stack trace to the awaiting process, and
+   * throws the {@code reason} as an {@code AssertionError} in the current thread. Only the first failure is published
+   * until the awaiting process has thrown it.
+   *
+   * @throws AssertionError wrapping the {@code reason}
+   */
+  public void fail(Throwable reason) {
+    AssertionError ae = null;
+    if (reason instanceof AssertionError)
+      ae = (AssertionError) reason;
+    else {
+      ae = new AssertionError();
+      ae.initCause(reason);
+    }
+
+    if (memory.compareAndSetInt(FAILURE_STATE_OFFSET, NO_FAILURE, FAILURE_WRITING)) {
+      byte[] message = encode(ae);
+      memory.putBytes(FAILURE_MESSAGE_OFFSET, message);
+      memory.setIntVolatile(FAILURE_LENGTH_OFFSET, message.length);
+      memory.setIntVolatile(FAILURE_STATE_OFFSET, FAILURE_PUBLISHED);
+    }
+
+    throw ae;
+  }
+
+  /**
+   * Closes the backing file. The waiter should not be used after it is closed.
+   */
+  public void close() throws IOException {
+    raf.close();
+  }
+
+  private static String describe(int variant) {
+    return variant == 1 ? "file locked" : variant == 2 ? "lock-free" : "unknown (" + variant + ")";
+  }
+
+  private AssertionError takeFailure() {
+    int length = memory.getIntVolatile(FAILURE_LENGTH_OFFSET);
+    String message;
+    try {
+      message = new String(memory.getBytes(FAILURE_MESSAGE_OFFSET, length), CHARSET);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+
+    memory.setIntVolatile(FAILURE_STATE_OFFSET, NO_FAILURE);
+    return new AssertionError("Failed in another process: " + message);
+  }
+
+  private static byte[] encode(Throwable failure) {
+    StringWriter writer = new StringWriter();
+    failure.printStackTrace(new PrintWriter(writer));
+    try {
+      byte[] bytes = writer.toString().getBytes(CHARSET);
+      if (bytes.length <= MAX_FAILURE_LENGTH)
+        return bytes;
+      byte[] truncated = new byte[MAX_FAILURE_LENGTH];
+      System.arraycopy(bytes, 0, truncated, 0, MAX_FAILURE_LENGTH);
+      return truncated;
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import net.jodah.concurrentunit.internal.MpscRingBuffer;
+
+/**
+ * A Reactive Streams {@link Subscriber} for testing publishers, built on its own {@link Waiter}. Demand is controlled
+ * explicitly via {@link #request(long)}, and received items are buffered in a bounded lock-free queue until they are
+ * taken by {@link #awaitNext(int, long, TimeUnit)}, so long streams can be tested without unbounded memory.
+ * <p>
+ * Errors signalled via {@code onError} are rethrown from the probe's await methods, as are Reactive Streams protocol
+ * violations such as items signalled beyond the requested demand. {@code java.util.concurrent.Flow} publishers can be
+ * tested by adapting the probe with {@code org.reactivestreams.FlowAdapters.toFlowSubscriber}.
+ *
+ * @author Jonathan Halterman
+ * @param <T> item type
+ */
+public class SubscriberProbe<T> implements Subscriber<T> {
+  private static final String TIMEOUT_MESSAGE = "Test timed out while waiting for %s, expectedItems: %d, actualItems: %d";
+  private final Waiter signals = new Waiter();
+  private final Waiter waiter;
+  private final MpscRingBuffer<T> items;
+  private final AtomicLong received = new AtomicLong();
+  private volatile Subscription subscription;
+  private volatile boolean completed;
+  private volatile boolean terminated;
+  private volatile long requested;
+  private long taken;
+
+  /**
+   * Creates a new SubscriberProbe buffering up to {@code bufferCapacity} items that have been received but not yet
+   * taken, rounded up to the next power of two.
+   */
+  public SubscriberProbe(int bufferCapacity) {
+    this.waiter = null;
+    this.items = new MpscRingBuffer<T>(bufferCapacity);
+  }
+
+  /**
+   * Creates a new SubscriberProbe that also reports errors and protocol violations to the {@code waiter}, buffering up
+   * to {@code bufferCapacity} items that have been received but not yet taken, rounded up to the next power of two.
+   * Signals do not resume the {@code waiter}, and the probe's await methods do not consume its resumes.
+   */
+  public SubscriberProbe(Waiter waiter, int bufferCapacity) {
+    if (waiter == null)
+      throw new NullPointerException("waiter");
+    this.waiter = waiter;
+    this.items = new MpscRingBuffer<T>(bufferCapacity);
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    if (subscription == null) {
+      violation("onSubscribe called with a null subscription");
+      return;
+    }
+
+    // Requests are made while holding the lock so that they never overlap, per rule 2.7
+    synchronized (this) {
+      if (this.subscription != null) {
+        subscription.cancel();
+        violation("onSubscribe called more than once");
+        return;
+      }
+      this.subscription = subscription;
+      if (requested > 0)
+        subscription.request(requested);
+    }
+
+    signals.resume();
+  }
+
+  @Override
+  public void onNext(T item) {
+    if (item == null)
+      violation("onNext called with a null item");
+    else if (terminated)
+      violation("onNext called after the stream terminated");
+    else if (received.incrementAndGet() > requested)
+      violation("onNext called beyond the requested demand of " + requested);
+    else if (!items.offer(item))
+      violation("Buffer capacity of " + items.capacity() + " exceeded");
+    else
+      signals.resume();
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    if (terminated)
+      violation("onError called after the stream terminated");
+    else {
+      terminated = true;
+      fail(error);
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    if (terminated)
+      violation("onComplete called after the stream terminated");
+    else {
+      terminated = true;
+      completed = true;
+      signals.resume();
+    }
+  }
+
+  /**
+   * Requests {@code n} more items from the publisher. If the probe has not yet been subscribed to, the request is made
+   * once it is.
+   *
+   * @throws IllegalArgumentException if {@code n} is not positive
+   * @throws IllegalStateException if the outstanding demand would exceed the probe's buffer capacity
+   */
+  public void request(long n) {
+    if (n <= 0)
+      throw new IllegalArgumentException("n must be > 0");
+
+    synchronized (this) {
+      if (requested + n - taken > items.capacity())
+        throw new IllegalStateException("Requesting " + n + " items would exceed the buffer capacity of "
+            + items.capacity() + " untaken items");
+      requested += n;
+      if (subscription != null)
+        subscription.request(n);
+    }
+  }
+
+  /**
+   * Cancels the subscription, if the probe has been subscribed to.
+   */
+  public void cancel() {
+    Subscription s = subscription;
+    if (s != null)
+      s.cancel();
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, the next {@code n} items have been received, or the test is failed,
+   * returning the items in the order they were received.
+   *
+   * @param delay Delay to wait for, or 0 to wait indefinitely
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if the stream completes before {@code n} items are received, or any assertion fails while
+   *           waiting
+   */
+  public List<T> awaitNext(int n, long delay, TimeUnit timeUnit) throws TimeoutException, InterruptedException {
+    List<T> result = new ArrayList<T>(n);
+    long deadline = System.nanoTime() + timeUnit.toNanos(delay);
+    while (true) {
+      boolean isCompleted = completed;
+      for (T item; result.size() < n && (item = items.poll()) != null;)
+        result.add(item);
+      if (result.size() == n)
+        break;
+      if (isCompleted) {
+        signals.rethrowFailure();
+        throw new AssertionError("Stream completed before the expected items were received, expectedItems: " + n
+            + ", actualItems: " + result.size());
+      }
+      awaitSignal(delay, deadline, "items", n, result.size());
+    }
+
+    synchronized (this) {
+      taken += n;
+    }
+    return result;
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, the stream completes, or the test is failed.
+   *
+   * @param delay Delay to wait for, or 0 to wait indefinitely
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if the stream signals an error, or any assertion fails while waiting
+   */
+  public void awaitComplete(long delay, TimeUnit timeUnit) throws TimeoutException, InterruptedException {
+    long deadline = System.nanoTime() + timeUnit.toNanos(delay);
+    while (!completed)
+      awaitSignal(delay, deadline, "completion", 0, 0);
+    signals.rethrowFailure();
+  }
+
+  /**
+   * Returns the number of items received.
+   */
+  public long getReceivedCount() {
+    return received.get();
+  }
+
+  /**
+   * Returns whether the stream has completed.
+   */
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * Waits for the next signal. Signals resume the probe's waiter, so signals that occurred before this call return
+   * immediately.
+   */
+  private void awaitSignal(long delay, long deadline, String expected, int expectedItems, int actualItems)
+      throws TimeoutException, InterruptedException {
+    long remainingNanos = 0;
+    if (delay != 0) {
+      remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0)
+        throw new TimeoutException(String.format(TIMEOUT_MESSAGE, expected, expectedItems, actualItems));
+    }
+
+    try {
+      signals.await(remainingNanos, TimeUnit.NANOSECONDS, 1);
+    } catch (TimeoutException e) {
+      throw new TimeoutException(String.format(TIMEOUT_MESSAGE, expected, expectedItems, actualItems));
+    }
+  }
+
+  private void violation(String reason) {
+    fail(new AssertionError("Reactive Streams violation: " + reason));
+  }
+
+  /**
+   * Records the {@code failure} to be thrown from the probe's await methods, and reports it to the supplied waiter, if
+   * any.
+   */
+  private void fail(Throwable failure) {
+    signals.recordFailure(failure);
+    if (waiter != null)
+      waiter.recordFailure(failure);
+  }
+}
@@ -15,11 +15,26 @@
  */
 package net.jodah.concurrentunit;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import net.jodah.concurrentunit.internal.DeadlockDetector;
+import net.jodah.concurrentunit.internal.Events;
+import net.jodah.concurrentunit.internal.MpscRingBuffer;
 import net.jodah.concurrentunit.internal.ReentrantCircuit;
+import net.jodah.concurrentunit.internal.ResourceMonitor;
 
 /**
  * Waits on a test, carrying out assertions, until being resumed.
@@ -28,9 +43,27 @@ import net.jodah.concurrentunit.internal.ReentrantCircuit;
  */
 public class Waiter {
   private static final String TIMEOUT_MESSAGE = "Test timed out while waiting for an expected result, expectedResumes: %d, actualResumes: %d";
+  private static final String DEADLOCK_MESSAGE = "Deadlock detected while waiting for an expected result, expectedResumes: %d, actualResumes: %d%n%s";
+  private static final String VALUE_CAPACITY_MESSAGE = "Waiter value capacity of %d exceeded, use Waiter(int) to increase it";
+  private static final int DEFAULT_VALUE_CAPACITY = 1024;
+  private static final Object NULL_VALUE = new Object();
+  private static final String DUPLICATE_SEQUENCE_MESSAGE = "Duplicate delivery for key %s, sequence: %d, expectedSequence: %d";
+  private static final String OUT_OF_ORDER_SEQUENCE_MESSAGE = "Out of order delivery for key %s, sequence: %d, expectedSequence: %d";
+  private static final String STALL_MESSAGE = "No resume progress for %dms while waiting for an expected result, expectedResumes: %d, actualResumes: %d%n%s";
   private AtomicInteger remainingResumes = new AtomicInteger(0);
   private final ReentrantCircuit circuit = new ReentrantCircuit();
   private volatile Throwable failure;
+  private volatile Throwable lastFailure;
+  private volatile long resumeCount;
+  private volatile long checkIntervalNanos;
+  private volatile long stallTimeoutNanos;
+  private volatile WaiterListener[] listeners;
+  private volatile boolean accountResources;
+  private volatile ResourceMonitor resourceMonitor;
+  private volatile ResourceUsage resourceUsage;
+  private final AtomicInteger submittedTasks = new AtomicInteger();
+  private final ConcurrentMap<Object, AtomicLong> sequences = new ConcurrentHashMap<Object, AtomicLong>();
+  private final AtomicReference<MpscRingBuffer<Object>> values = new AtomicReference<MpscRingBuffer<Object>>();
 
   /**
    * Creates a new Waiter.
@@ -39,12 +72,98 @@ public class Waiter {
     circuit.open();
   }
 
+  /**
+   * Creates a new Waiter that can hold up to {@code valueCapacity} values passed to {@link #resumeWith(Object)}
+   * between {@link #awaitValues(long, TimeUnit, int) awaitValues} calls, rounded up to the next power of two. The value
+   * buffer is preallocated so that capturing values does not allocate.
+   */
+  public Waiter(int valueCapacity) {
+    values.set(new MpscRingBuffer<Object>(valueCapacity));
+    circuit.open();
+  }
+
+  /**
+   * Enables deadlock detection while awaiting. Every {@code checkInterval} an awaiting thread checks for deadlocked
+   * threads, failing the {@code await} immediately with a description of the deadlock if any are found.
+   *
+   * @param checkInterval Interval to check for deadlocks at, or 0 to disable deadlock detection
+   * @param timeUnit TimeUnit of the interval
+   */
+  public void detectDeadlocks(long checkInterval, TimeUnit timeUnit) {
+    checkIntervalNanos = timeUnit.toNanos(checkInterval);
+  }
+
+  /**
+   * Enables stall detection while awaiting, failing the {@code await} with a description of the runnable threads when
+   * {@link #resume()} has not been called for the {@code stallTimeout}. Stalls are checked for at the
+   * {@link #detectDeadlocks(long, TimeUnit) deadlock check interval}, which defaults to a tenth of the
+   * {@code stallTimeout} if not set.
+   *
+   * @param stallTimeout Time without resume progress after which to fail, or 0 to disable stall detection
+   * @param timeUnit TimeUnit of the stallTimeout
+   */
+  public void detectStalls(long stallTimeout, TimeUnit timeUnit) {
+    stallTimeoutNanos = timeUnit.toNanos(stallTimeout);
+  }
+
+  /**
+   * Enables or disables accounting for the CPU time and allocated bytes of the threads that interact with this waiter
+   * while awaiting. When enabled, the awaiting thread and any thread that asserts, resumes or fails the waiter between
+   * the {@code await} being armed and released are accounted for, from the time the await was armed. Totals are
+   * available from {@link #getResourceUsage()} and are appended to timeout messages. Accounting samples every live
+   * thread when an await is armed, so it should only be enabled for tests that measure resource usage.
+   */
+  public void accountResources(boolean enabled) {
+    if (enabled)
+      ResourceMonitor.enableCpuTime();
+    accountResources = enabled;
+  }
+
+  /**
+   * Returns the resource usage of the last {@code await}, or null if {@link #accountResources(boolean) resource
+   * accounting} was not enabled for it.
+   */
+  public ResourceUsage getResourceUsage() {
+    return resourceUsage;
+  }
+
+  /**
+   * Adds a {@code listener} to be notified of this waiter's activity. Listeners are notified on the thread performing
+   * the activity, outside of any locks held by the waiter.
+   */
+  public synchronized void addListener(WaiterListener listener) {
+    if (listener == null)
+      throw new NullPointerException("listener");
+    WaiterListener[] current = listeners;
+    WaiterListener[] updated;
+    if (current == null)
+      updated = new WaiterListener[] { listener };
+    else {
+      updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = listener;
+    }
+    listeners = updated;
+  }
+
+  /**
+   * Removes a {@code listener} that was previously {@link #addListener(WaiterListener) added}.
+   */
+  public synchronized void removeListener(WaiterListener listener) {
+    WaiterListener[] current = listeners;
+    if (current == null)
+      return;
+    List<WaiterListener> updated = new ArrayList<WaiterListener>(Arrays.asList(current));
+    updated.remove(listener);
+    listeners = updated.isEmpty() ? null : updated.toArray(new WaiterListener[updated.size()]);
+  }
+
   /**
    * Asserts that the {@code expected} values equals the {@code actual} value
    *
    * @throws AssertionError when the assertion fails
    */
   public void assertEquals(Object expected, Object actual) {
+    sampleResources();
     if (expected == null && actual == null)
       return;
     if (expected != null && expected.equals(actual))
@@ -52,12 +171,74 @@ public class Waiter {
     fail(format(expected, actual));
   }
 
+  /**
+   * Asserts that the {@code expected} values equal the {@code actual} values in the same order.
+   *
+   * @throws AssertionError when the assertion fails
+   */
+  public void assertEqualsInOrder(List<?> expected, List<?> actual) {
+    sampleResources();
+    int size = Math.min(expected.size(), actual.size());
+    for (int i = 0; i < size; i++) {
+      Object e = expected.get(i);
+      Object a = actual.get(i);
+      if (e == null ? a != null : !e.equals(a))
+        fail("values differ at index " + i + ", " + format(e, a));
+    }
+    if (expected.size() != actual.size())
+      fail("expected " + expected.size() + " values but was " + actual.size() + ", " + format(expected, actual));
+  }
+
+  /**
+   * Asserts that the {@code expected} values equal the {@code actual} values, regardless of order. Duplicate values
+   * must occur the same number of times in each.
+   *
+   * @throws AssertionError when the assertion fails
+   */
+  public void assertEqualsInAnyOrder(Collection<?> expected, Collection<?> actual) {
+    sampleResources();
+    Map<Object, Integer> counts = new HashMap<Object, Integer>();
+    for (Object e : expected) {
+      Integer count = counts.get(e);
+      counts.put(e, count == null ? 1 : count + 1);
+    }
+
+    List<Object> unexpected = new ArrayList<Object>();
+    for (Object a : actual) {
+      Integer count = counts.get(a);
+      if (count == null)
+        unexpected.add(a);
+      else if (count == 1)
+        counts.remove(a);
+      else
+        counts.put(a, count - 1);
+    }
+
+    if (!counts.isEmpty() || !unexpected.isEmpty())
+      fail("missing values:<" + counts.keySet() + "> unexpected values:<" + unexpected + ">");
+  }
+
+  /**
+   * Asserts that the {@code history} is linearizable with respect to the {@code model}.
+   *
+   * @throws AssertionError when the assertion fails, describing the longest linearizable prefix of the history
+   * @throws IllegalStateException if the history contains operations that have not completed
+   * @see LinearizabilityChecker
+   */
+  public <S, I, O> void assertLinearizable(SequentialModel<S, I, O> model, History<I, O> history) {
+    sampleResources();
+    String violation = LinearizabilityChecker.check(model, history);
+    if (violation != null)
+      fail(violation);
+  }
+
   /**
    * Asserts that the {@code condition} is false.
    *
    * @throws AssertionError when the assertion fails
    */
   public void assertFalse(boolean condition) {
+    sampleResources();
     if (condition)
       fail("expected false");
   }
@@ -68,6 +249,7 @@ public class Waiter {
    * @throws AssertionError when the assertion fails
    */
   public void assertNotNull(Object object) {
+    sampleResources();
     if (object == null)
       fail("expected not null");
   }
@@ -78,6 +260,7 @@ public class Waiter {
    * @throws AssertionError when the assertion fails
    */
   public void assertNull(Object object) {
+    sampleResources();
     if (object != null)
       fail(format("null", object));
   }
@@ -88,6 +271,7 @@ public class Waiter {
    * @throws AssertionError when the assertion fails
    */
   public void assertTrue(boolean condition) {
+    sampleResources();
     if (!condition)
       fail("expected true");
   }
@@ -98,6 +282,7 @@ public class Waiter {
    * @throws AssertionError when the assertion fails
    */
   public <T> void assertThat(T actual, org.hamcrest.Matcher<? super T> matcher) {
+    sampleResources();
     try {
       org.hamcrest.MatcherAssert.assertThat(actual, matcher);
     } catch (AssertionError e) {
@@ -105,6 +290,35 @@ public class Waiter {
     }
   }
 
+  /**
+   * Waits until the {@code delay} has elapsed, all tasks submitted to executors {@link #wrap(ExecutorService) wrapped}
+   * by this waiter since the last {@code awaitTasks} call have completed, or the test is failed.
+   *
+   * @param delay Delay to wait for, or 0 to wait indefinitely
+   * @param timeUnit TimeUnit to delay for
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public void awaitTasks(long delay, TimeUnit timeUnit) throws TimeoutException, InterruptedException {
+    int tasks = submittedTasks.getAndSet(0);
+    if (tasks > 0)
+      await(delay, timeUnit, tasks);
+    else
+      rethrowFailure();
+  }
+
+  /**
+   * Throws the recorded failure, if any, without waiting.
+   */
+  void rethrowFailure() {
+    if (failure != null) {
+      Throwable f = failure;
+      failure = null;
+      sneakyThrow(f);
+    }
+  }
+
   /**
    * Waits until {@link #resume()} is called, or the test is failed.
    *
@@ -169,22 +383,72 @@ public class Waiter {
    * @throws AssertionError if any assertion fails while waiting
    */
   public void await(long delay, TimeUnit timeUnit, int expectedResumes) throws TimeoutException, InterruptedException {
+    Object event = Events.awaitStarted();
+    resourceUsage = null;
+    WaiterListener[] listeners = this.listeners;
+    long startTime = listeners == null ? 0 : System.nanoTime();
+    boolean timedOut = false;
+    ResourceMonitor monitor = null;
     try {
       if (failure == null) {
+        if (accountResources) {
+          monitor = new ResourceMonitor();
+          monitor.sample();
+          resourceMonitor = monitor;
+        }
+
         synchronized (this) {
           int remaining = remainingResumes.addAndGet(expectedResumes);
           if (remaining > 0)
             circuit.open();
         }
 
-        if (delay == 0)
+        if (listeners != null)
+          for (WaiterListener listener : listeners)
+            try {
+              listener.armed(this, expectedResumes);
+            } catch (RuntimeException ignore) {
+            }
+
+        boolean released;
+        if (checkIntervalNanos > 0 || stallTimeoutNanos > 0)
+          released = watchedAwait(timeUnit.toNanos(delay), expectedResumes);
+        else if (delay == 0) {
           circuit.await();
-        else if (!circuit.await(delay, timeUnit)) {
+          released = true;
+        } else
+          released = circuit.await(delay, timeUnit);
+
+        if (!released) {
+          timedOut = true;
           final int actualResumes = expectedResumes - remainingResumes.get();
-          throw new TimeoutException(String.format(TIMEOUT_MESSAGE, expectedResumes, actualResumes));
+          Events.timedOut(expectedResumes, actualResumes);
+          if (listeners != null)
+            for (WaiterListener listener : listeners)
+              try {
+                listener.timedOut(this, expectedResumes, actualResumes, System.nanoTime() - startTime);
+              } catch (RuntimeException ignore) {
+              }
+          String message = String.format(TIMEOUT_MESSAGE, expectedResumes, actualResumes);
+          if (monitor != null) {
+            resourceUsage = usage(monitor);
+            monitor = null;
+            message += ", " + resourceUsage;
+          }
+          throw new TimeoutException(message);
         }
+
+        if (listeners != null && failure == null)
+          for (WaiterListener listener : listeners)
+            try {
+              listener.released(this, System.nanoTime() - startTime);
+            } catch (RuntimeException ignore) {
+            }
       }
     } finally {
+      Events.awaitEnded(event, expectedResumes, expectedResumes - remainingResumes.get(), timedOut);
+      if (monitor != null)
+        resourceUsage = usage(monitor);
       remainingResumes.set(0);
       circuit.open();
       if (failure != null) {
@@ -195,12 +459,229 @@ public class Waiter {
     }
   }
 
+  /**
+   * Samples the resource usage of the current thread if an await is being accounted for.
+   */
+  private void sampleResources() {
+    ResourceMonitor monitor = resourceMonitor;
+    if (monitor != null)
+      monitor.sample();
+  }
+
+  /**
+   * Stops accounting for the {@code monitor}, returning the usage of the threads it accounted for.
+   */
+  private ResourceUsage usage(ResourceMonitor monitor) {
+    resourceMonitor = null;
+    monitor.sample();
+    long[] totals = monitor.totals();
+    return new ResourceUsage(totals[0], totals[1], (int) totals[2]);
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, {@link #resume()} or {@link #resumeWith(Object)} is called
+   * {@code expectedResumes} times, or the test is failed, returning the values passed to {@link #resumeWith(Object)}
+   * since the last {@code awaitValues} call in the order they arrived.
+   *
+   * @param delay Delay to wait for in milliseconds
+   * @param expectedResumes Number of times {@link #resume()} is expected to be called before the awaiting thread is
+   *          resumed
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public <T> List<T> awaitValues(long delay, int expectedResumes) throws TimeoutException, InterruptedException {
+    return awaitValues(delay, TimeUnit.MILLISECONDS, expectedResumes);
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, {@link #resume()} or {@link #resumeWith(Object)} is called
+   * {@code expectedResumes} times, or the test is failed, returning the values passed to {@link #resumeWith(Object)}
+   * since the last {@code awaitValues} call in the order they arrived. Values are discarded if the wait fails.
+   *
+   * @param delay Delay to wait for
+   * @param timeUnit TimeUnit to delay for
+   * @param expectedResumes Number of times {@link #resume()} is expected to be called before the awaiting thread is
+   *          resumed
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> awaitValues(long delay, TimeUnit timeUnit, int expectedResumes)
+      throws TimeoutException, InterruptedException {
+    List<Object> result = new ArrayList<Object>(Math.max(expectedResumes, 0));
+    try {
+      await(delay, timeUnit, expectedResumes);
+    } finally {
+      MpscRingBuffer<Object> buffer = values.get();
+      if (buffer != null)
+        buffer.drainTo(result);
+    }
+
+    for (int i = 0; i < result.size(); i++)
+      if (result.get(i) == NULL_VALUE)
+        result.set(i, null);
+    return (List<T>) result;
+  }
+
+  /**
+   * Awaits the circuit for up to {@code delayNanos}, or indefinitely if 0, checking for deadlocks and stalls between
+   * intervals. Returns false if the wait timed out. Deadlocks and stalls are recorded as failures, which are thrown
+   * when the await completes.
+   */
+  private boolean watchedAwait(long delayNanos, int expectedResumes) throws InterruptedException {
+    long stallNanos = stallTimeoutNanos;
+    long intervalNanos = checkIntervalNanos > 0 ? checkIntervalNanos : Math.max(1, stallNanos / 10);
+    long now = System.nanoTime();
+    long deadline = now + delayNanos;
+    long progress = resumeCount;
+    long progressTime = now;
+
+    while (true) {
+      long waitNanos = intervalNanos;
+      if (delayNanos > 0) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0)
+          return false;
+        waitNanos = Math.min(waitNanos, remainingNanos);
+      }
+
+      if (circuit.await(waitNanos, TimeUnit.NANOSECONDS))
+        return true;
+
+      if (checkIntervalNanos > 0) {
+        String deadlocks = DeadlockDetector.findDeadlocks();
+        if (deadlocks != null) {
+          recordFailure(new AssertionError(String.format(DEADLOCK_MESSAGE, expectedResumes,
+              expectedResumes - remainingResumes.get(), deadlocks)));
+          return true;
+        }
+      }
+
+      if (stallNanos > 0) {
+        now = System.nanoTime();
+        if (progress != resumeCount) {
+          progress = resumeCount;
+          progressTime = now;
+        } else if (now - progressTime >= stallNanos) {
+          recordFailure(new AssertionError(String.format(STALL_MESSAGE,
+              TimeUnit.NANOSECONDS.toMillis(now - progressTime), expectedResumes,
+              expectedResumes - remainingResumes.get(), DeadlockDetector.describeRunnableThreads())));
+          return true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a new scope that forks subtasks onto virtual threads when running on Java 21+, else onto daemon threads.
+   * Subtask failures are rethrown when the scope is joined. The scope tracks its subtasks separately from this waiter's
+   * resumes, but uses this waiter's current listeners, deadlock and stall detection, and resource accounting.
+   *
+   * @see WaiterScope
+   */
+  public WaiterScope scope() {
+    return new WaiterScope(newChild(), null);
+  }
+
+  /**
+   * Returns a new scope that forks subtasks onto the {@code executor}. Subtask failures are rethrown when the scope is
+   * joined. The {@code executor} is not shut down when the scope is closed. The scope tracks its subtasks separately
+   * from this waiter's resumes, but uses this waiter's current listeners, deadlock and stall detection, and resource
+   * accounting.
+   *
+   * @see WaiterScope
+   */
+  public WaiterScope scope(ExecutorService executor) {
+    if (executor == null)
+      throw new NullPointerException("executor");
+    return new WaiterScope(newChild(), executor);
+  }
+
+  /**
+   * Returns an ExecutorService that submits tasks to the {@code executor}, resuming this waiter as each task completes
+   * and failing this waiter with any exception a task throws, which is rethrown as-is from the awaiting thread. Use
+   * {@link #awaitTasks(long, TimeUnit)} to wait for all submitted tasks. Shutting down the returned ExecutorService
+   * shuts down the {@code executor}.
+   */
+  public ExecutorService wrap(ExecutorService executor) {
+    return new WaiterExecutorService(this, executor, submittedTasks);
+  }
+
   /**
    * Resumes the waiter when the expected number of {@link #resume()} calls have occurred.
    */
-  public synchronized void resume() {
-    if (remainingResumes.decrementAndGet() <= 0)
-      circuit.close();
+  public void resume() {
+    sampleResources();
+    int remaining;
+    synchronized (this) {
+      resumeCount++;
+      remaining = remainingResumes.decrementAndGet();
+      Events.resumed(remaining);
+      if (remaining <= 0)
+        circuit.close();
+    }
+
+    WaiterListener[] listeners = this.listeners;
+    if (listeners != null)
+      for (WaiterListener listener : listeners)
+        try {
+          listener.resumed(this, remaining);
+        } catch (RuntimeException ignore) {
+        }
+  }
+
+  /**
+   * Captures the {@code value}, to be returned by {@link #awaitValues(long, TimeUnit, int) awaitValues}, and resumes
+   * the waiter when the expected number of resume calls have occurred.
+   *
+   * @throws AssertionError if the waiter's value capacity is exceeded
+   */
+  public <T> void resumeWith(T value) {
+    MpscRingBuffer<Object> buffer = values.get();
+    if (buffer == null && !values.compareAndSet(null, buffer = new MpscRingBuffer<Object>(DEFAULT_VALUE_CAPACITY)))
+      buffer = values.get();
+    if (!buffer.offer(value == null ? NULL_VALUE : value))
+      fail(String.format(VALUE_CAPACITY_MESSAGE, buffer.capacity()));
+    resume();
+  }
+
+  /**
+   * Resumes the waiter when the expected number of resume calls have occurred, first asserting that the
+   * {@code sequence} is the next in order for the {@code key}. Sequences for each key start at 0 and must be resumed
+   * consecutively. The check is performed inline on the resuming thread, so any {@code await} fails on the first
+   * duplicate or out of order delivery.
+   *
+   * @throws AssertionError if the {@code sequence} was already resumed for the {@code key} or arrived out of order
+   */
+  public void resume(Object key, long sequence) {
+    AtomicLong last = sequences.get(key);
+    if (last == null) {
+      AtomicLong created = new AtomicLong(-1);
+      last = sequences.putIfAbsent(key, created);
+      if (last == null)
+        last = created;
+    }
+
+    for (;;) {
+      long previous = last.get();
+      if (sequence != previous + 1)
+        failFirst(new AssertionError(String.format(
+            sequence <= previous ? DUPLICATE_SEQUENCE_MESSAGE : OUT_OF_ORDER_SEQUENCE_MESSAGE, key, sequence,
+            previous + 1)));
+      if (last.compareAndSet(previous, sequence))
+        break;
+    }
+
+    resume();
+  }
+
+  /**
+   * Clears the sequences recorded by {@link #resume(Object, long)}, so that each key's sequence starts again at 0.
+   */
+  public void resetSequences() {
+    sequences.clear();
   }
 
   /**
@@ -236,8 +717,7 @@ public class Waiter {
       ae.initCause(reason);
     }
 
-    failure = ae;
-    circuit.close();
+    recordFailure(ae);
     throw ae;
   }
 
@@ -248,9 +728,57 @@ public class Waiter {
    * @throws Throwable the {@code failure}
    */
   public void rethrow(Throwable failure) {
+    recordFailure(failure);
+    sneakyThrow(failure);
+  }
+
+  /**
+   * Records the {@code failure} to be thrown in the main test thread without throwing it in the current thread.
+   */
+  void recordFailure(Throwable failure) {
+    sampleResources();
+    Events.failed(failure);
     this.failure = failure;
+    lastFailure = failure;
     circuit.close();
-    sneakyThrow(failure);
+
+    WaiterListener[] listeners = this.listeners;
+    if (listeners != null)
+      for (WaiterListener listener : listeners)
+        try {
+          listener.failed(this, failure);
+        } catch (RuntimeException ignore) {
+        }
+  }
+
+  /**
+   * Records the {@code failure} of a task unless it was already recorded by the task, such as through an assertion.
+   */
+  void recordTaskFailure(Throwable failure) {
+    if (failure != lastFailure)
+      recordFailure(failure);
+  }
+
+  /**
+   * Returns a new waiter with this waiter's listeners, deadlock and stall detection, and resource accounting.
+   */
+  Waiter newChild() {
+    Waiter child = new Waiter();
+    child.listeners = listeners;
+    child.checkIntervalNanos = checkIntervalNanos;
+    child.stallTimeoutNanos = stallTimeoutNanos;
+    child.accountResources = accountResources;
+    return child;
+  }
+
+  /**
+   * Fails the current test with the {@code failure} unless it has already been failed, so that the first of several
+   * concurrent failures is reported, and throws the {@code failure} in the current thread.
+   */
+  private void failFirst(AssertionError failure) {
+    if (this.failure == null)
+      recordFailure(failure);
+    throw failure;
   }
 
   private static void sneakyThrow(Throwable t) {
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An ExecutorService whose tasks resume a {@link Waiter} when they complete and report their failures to it.
+ * Submitted tasks are created as {@link FutureTask FutureTasks} that perform the resume themselves, so no allocation is
+ * made beyond the task that the delegate would otherwise create.
+ *
+ * @author Jonathan Halterman
+ */
+class WaiterExecutorService extends AbstractExecutorService {
+  private final Waiter waiter;
+  private final ExecutorService delegate;
+  private final AtomicInteger submittedTasks;
+
+  WaiterExecutorService(Waiter waiter, ExecutorService delegate, AtomicInteger submittedTasks) {
+    if (delegate == null)
+      throw new NullPointerException("delegate");
+    this.waiter = waiter;
+    this.delegate = delegate;
+    this.submittedTasks = submittedTasks;
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    return new Task<T>(callable);
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return new Task<T>(runnable, value);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    Runnable task = command instanceof Task && ((Task<?>) command).owner() == this ? command
+        : new ResumingRunnable(command);
+    submittedTasks.incrementAndGet();
+    try {
+      delegate.execute(task);
+    } catch (RejectedExecutionException e) {
+      submittedTasks.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Called on the thread that runs a task before it runs.
+   */
+  void beforeExecute() {
+  }
+
+  /**
+   * Called on the thread that runs a task after it has run or found that it was cancelled.
+   */
+  void afterExecute() {
+  }
+
+  /**
+   * Called when a task is done, including when it failed or was cancelled, to resume the waiter.
+   */
+  void taskDone() {
+    waiter.resume();
+  }
+
+  /**
+   * Called when a {@code task} fails, before the waiter is resumed for the task. The {@code task} is null for tasks
+   * that were executed rather than submitted. Failures the task already reported to the waiter, such as failed
+   * assertions, are not recorded again.
+   */
+  void taskFailed(Future<?> task, Throwable failure) {
+    waiter.recordTaskFailure(failure);
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * A submitted task, which resumes the waiter when done, including when it is cancelled.
+   */
+  final class Task<V> extends FutureTask<V> {
+    private volatile Throwable failure;
+
+    Task(Callable<V> callable) {
+      super(callable);
+    }
+
+    Task(Runnable runnable, V value) {
+      super(runnable, value);
+    }
+
+    WaiterExecutorService owner() {
+      return WaiterExecutorService.this;
+    }
+
+    @Override
+    public void run() {
+      beforeExecute();
+      try {
+        super.run();
+      } finally {
+        afterExecute();
+      }
+    }
+
+    @Override
+    protected void setException(Throwable t) {
+      failure = t;
+      super.setException(t);
+    }
+
+    /**
+     * Reports the task's failure, if any, once it has been stored, so that the task cannot be cancelled after its
+     * failure is reported. Failures of cancelled tasks are not reported.
+     */
+    @Override
+    protected void done() {
+      if (failure != null && !isCancelled())
+        taskFailed(this, failure);
+      taskDone();
+    }
+  }
+
+  /**
+   * An executed task, which resumes the waiter when complete.
+   */
+  final class ResumingRunnable implements Runnable {
+    private final Runnable runnable;
+
+    ResumingRunnable(Runnable runnable) {
+      this.runnable = runnable;
+    }
+
+    public void run() {
+      beforeExecute();
+      try {
+        runnable.run();
+      } catch (Throwable t) {
+        taskFailed(null, t);
+      } finally {
+        taskDone();
+        afterExecute();
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+/**
+ * Listens for {@link Waiter} activity, such as for exporting metrics. Listeners are notified on the thread performing
+ * the activity, outside of any locks held by the waiter, and should return quickly. Runtime exceptions thrown by
+ * listeners are ignored.
+ *
+ * @author Jonathan Halterman
+ * @see Waiter#addListener(WaiterListener)
+ * @see WaiterMetrics
+ */
+public interface WaiterListener {
+  /**
+   * Called when the {@code waiter} is armed by an await call expecting {@code expectedResumes}.
+   */
+  void armed(Waiter waiter, int expectedResumes);
+
+  /**
+   * Called when the {@code waiter} is resumed, leaving {@code remainingResumes} outstanding. Since the resuming thread
+   * is notified after releasing the waiter's lock, this may occur concurrently with a released await returning.
+   */
+  void resumed(Waiter waiter, int remainingResumes);
+
+  /**
+   * Called when an await on the {@code waiter} is released after waiting {@code waitNanos}.
+   */
+  void released(Waiter waiter, long waitNanos);
+
+  /**
+   * Called when the {@code waiter} is failed with the {@code failure}. Since the failing thread is notified after the
+   * failure releases any await, this may occur concurrently with the await throwing the failure.
+   */
+  void failed(Waiter waiter, Throwable failure);
+
+  /**
+   * Called when an await on the {@code waiter} times out after waiting {@code waitNanos}, having received
+   * {@code actualResumes} of the {@code expectedResumes}.
+   */
+  void timedOut(Waiter waiter, int expectedResumes, int actualResumes, long waitNanos);
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link WaiterListener} that counts waiter activity and times awaits. A single instance may be added to any number
+ * of waiters and scraped at the end of a test suite.
+ *
+ * @author Jonathan Halterman
+ */
+public class WaiterMetrics implements WaiterListener {
+  private final AtomicLong awaits = new AtomicLong();
+  private final AtomicLong resumes = new AtomicLong();
+  private final AtomicLong releases = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  @Override
+  public void armed(Waiter waiter, int expectedResumes) {
+    awaits.incrementAndGet();
+  }
+
+  @Override
+  public void resumed(Waiter waiter, int remainingResumes) {
+    resumes.incrementAndGet();
+  }
+
+  @Override
+  public void released(Waiter waiter, long waitNanos) {
+    releases.incrementAndGet();
+    recordWait(waitNanos);
+  }
+
+  @Override
+  public void failed(Waiter waiter, Throwable failure) {
+    failures.incrementAndGet();
+  }
+
+  @Override
+  public void timedOut(Waiter waiter, int expectedResumes, int actualResumes, long waitNanos) {
+    timeouts.incrementAndGet();
+    recordWait(waitNanos);
+  }
+
+  /**
+   * Returns the number of awaits that were armed.
+   */
+  public long getAwaits() {
+    return awaits.get();
+  }
+
+  /**
+   * Returns the number of resumes.
+   */
+  public long getResumes() {
+    return resumes.get();
+  }
+
+  /**
+   * Returns the number of awaits that were released by resumes.
+   */
+  public long getReleases() {
+    return releases.get();
+  }
+
+  /**
+   * Returns the number of failures.
+   */
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /**
+   * Returns the number of awaits that timed out.
+   */
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+  /**
+   * Returns the total time spent in awaits that were released or timed out.
+   */
+  public long getTotalWaitTime(TimeUnit timeUnit) {
+    return timeUnit.convert(totalWaitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the longest time spent in an await that was released or timed out.
+   */
+  public long getMaxWaitTime(TimeUnit timeUnit) {
+    return timeUnit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Resets all counters and timers to 0.
+   */
+  public void reset() {
+    awaits.set(0);
+    resumes.set(0);
+    releases.set(0);
+    failures.set(0);
+    timeouts.set(0);
+    totalWaitNanos.set(0);
+    maxWaitNanos.set(0);
+  }
+
+  private void recordWait(long waitNanos) {
+    totalWaitNanos.addAndGet(waitNanos);
+    for (long max = maxWaitNanos.get(); waitNanos > max; max = maxWaitNanos.get())
+      if (maxWaitNanos.compareAndSet(max, waitNanos))
+        break;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "awaits: %d, resumes: %d, releases: %d, failures: %d, timeouts: %d, totalWaitTime: %dms, maxWaitTime: %dms",
+        getAwaits(), getResumes(), getReleases(), getFailures(), getTimeouts(),
+        getTotalWaitTime(TimeUnit.MILLISECONDS), getMaxWaitTime(TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scope in which subtasks are forked and joined, tracked by the scope's own {@link Waiter} and outstanding subtask
+ * count so that they do not interfere with resumes of the waiter that created the scope. When a subtask fails or a join times
+ * out, the remaining subtasks are cancelled, and closing the scope cancels any subtasks that are still running and
+ * waits for them to finish. Scopes are intended to be used with try-with-resources:
+ *
+ * <pre>
+ * try (WaiterScope scope = waiter.scope()) {
+ *   for (int i = 0; i &lt; 10000; i++)
+ *     scope.fork(task);
+ *   scope.join(10, TimeUnit.SECONDS);
+ * }
+ * </pre>
+ *
+ * @author Jonathan Halterman
+ * @see Waiter#scope()
+ */
+public class WaiterScope implements Closeable {
+  private static final String JOIN_TIMEOUT_MESSAGE = "Scope join timed out while waiting for subtasks, outstandingSubtasks: %d";
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+  private static final String CLOSE_TIMEOUT_MESSAGE = "%d subtasks did not finish within %ds of the scope being closed";
+  private final Waiter waiter;
+  private final ExecutorService ownedExecutor;
+  private final ExecutorService executor;
+  private final AtomicInteger outstandingTasks = new AtomicInteger();
+  private final Queue<Future<?>> forks = new ConcurrentLinkedQueue<Future<?>>();
+  private final AtomicInteger runningTasks = new AtomicInteger();
+  private volatile boolean closed;
+  private volatile boolean failed;
+
+  WaiterScope(Waiter waiter, ExecutorService executor) {
+    this.waiter = waiter;
+    this.ownedExecutor = executor == null ? newExecutor() : null;
+    this.executor = new WaiterExecutorService(waiter, executor == null ? ownedExecutor : executor, outstandingTasks) {
+      @Override
+      void beforeExecute() {
+        runningTasks.incrementAndGet();
+      }
+
+      @Override
+      void afterExecute() {
+        if (runningTasks.decrementAndGet() == 0)
+          synchronized (runningTasks) {
+            runningTasks.notifyAll();
+          }
+      }
+
+      @Override
+      void taskDone() {
+        outstandingTasks.decrementAndGet();
+        super.taskDone();
+      }
+
+      @Override
+      void taskFailed(Future<?> task, Throwable failure) {
+        super.taskFailed(task, failure);
+        failed = true;
+        cancelAll(task);
+      }
+    };
+  }
+
+  /**
+   * Forks the {@code task} as a subtask of the scope.
+   *
+   * @throws IllegalStateException if the scope is closed
+   */
+  public <T> Future<T> fork(Callable<T> task) {
+    checkOpen();
+    Future<T> future = executor.submit(task);
+    forks.add(future);
+    if (failed)
+      future.cancel(true);
+    return future;
+  }
+
+  /**
+   * Forks the {@code task} as a subtask of the scope.
+   *
+   * @throws IllegalStateException if the scope is closed
+   */
+  public Future<?> fork(Runnable task) {
+    checkOpen();
+    Future<?> future = executor.submit(task);
+    forks.add(future);
+    if (failed)
+      future.cancel(true);
+    return future;
+  }
+
+  /**
+   * Waits until the {@code delay} has elapsed, all forked subtasks are done, or a subtask has failed, cancelling the
+   * remaining subtasks if the join times out.
+   *
+   * @param delay Delay to wait for, or 0 to wait indefinitely
+   * @param timeUnit TimeUnit to delay for
+   * @throws TimeoutException if the operation times out while waiting
+   * @throws InterruptedException if the operations is interrupted while waiting
+   * @throws AssertionError if any assertion fails while waiting
+   */
+  public void join(long delay, TimeUnit timeUnit) throws TimeoutException, InterruptedException {
+    try {
+      // Subtasks resume the waiter as they finish, so resumes left over from cancelled subtasks only cause a recheck
+      long deadline = System.nanoTime() + timeUnit.toNanos(delay);
+      for (int outstanding; (outstanding = outstandingTasks.get()) > 0;) {
+        long remainingNanos = 0;
+        if (delay != 0 && (remainingNanos = deadline - System.nanoTime()) <= 0)
+          throw new TimeoutException(String.format(JOIN_TIMEOUT_MESSAGE, outstanding));
+        try {
+          waiter.await(remainingNanos, TimeUnit.NANOSECONDS, outstanding);
+        } catch (TimeoutException e) {
+          throw new TimeoutException(String.format(JOIN_TIMEOUT_MESSAGE, outstandingTasks.get()));
+        }
+      }
+      waiter.rethrowFailure();
+    } catch (TimeoutException e) {
+      cancelAll(null);
+      throw e;
+    } finally {
+      // Drop references to completed subtasks
+      for (Iterator<Future<?>> it = forks.iterator(); it.hasNext();)
+        if (it.next().isDone())
+          it.remove();
+    }
+  }
+
+  /**
+   * Closes the scope, cancelling any subtasks that are still running, shutting down the scope's own executor, if one
+   * was created, and waiting up to 10 seconds for the cancelled subtasks to finish. If the current thread is
+   * interrupted while waiting, the scope is closed without waiting further and the thread's interrupt status is set.
+   *
+   * @throws IllegalStateException if subtasks are still running after 10 seconds
+   */
+  public void close() {
+    closed = true;
+    cancelAll(null);
+    if (ownedExecutor != null)
+      ownedExecutor.shutdownNow();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+    synchronized (runningTasks) {
+      for (long remaining; runningTasks.get() > 0;) {
+        if ((remaining = deadline - System.nanoTime()) <= 0)
+          throw new IllegalStateException(
+              String.format(CLOSE_TIMEOUT_MESSAGE, runningTasks.get(), CLOSE_TIMEOUT_SECONDS));
+        try {
+          TimeUnit.NANOSECONDS.timedWait(runningTasks, remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Cancels the forked subtasks other than the {@code failedTask}, which must not be cancelled since its failure is
+   * still being recorded.
+   */
+  private void cancelAll(Future<?> failedTask) {
+    for (Future<?> future; (future = forks.poll()) != null;)
+      if (future != failedTask)
+        future.cancel(true);
+  }
+
+  private void checkOpen() {
+    if (closed)
+      throw new IllegalStateException("Scope is closed");
+  }
+
+  /**
+   * Returns an executor that runs each task on a new virtual thread when running on Java 21+, else on pooled daemon
+   * threads.
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (Exception ignore) {
+      return Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "concurrentunit-scope-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+  }
+}
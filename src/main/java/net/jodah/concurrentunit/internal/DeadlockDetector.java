@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Detects deadlocked threads and describes the state of threads that may be livelocked.
+ *
+ * @author Jonathan Halterman
+ */
+public final class DeadlockDetector {
+  private static final int MAX_FRAMES = 8;
+
+  private DeadlockDetector() {
+  }
+
+  /**
+   * Returns a description of the threads that are deadlocked, including the locks they are waiting on and the owners
+   * of those locks, else null if no threads are deadlocked.
+   */
+  public static String findDeadlocks() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long[] ids = threads.isSynchronizerUsageSupported() ? threads.findDeadlockedThreads()
+        : threads.findMonitorDeadlockedThreads();
+    if (ids == null || ids.length == 0)
+      return null;
+
+    StringBuilder sb = new StringBuilder();
+    for (ThreadInfo info : threads.getThreadInfo(ids, threads.isObjectMonitorUsageSupported(),
+        threads.isSynchronizerUsageSupported()))
+      if (info != null)
+        describe(info, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Returns a description of the runnable threads other than the current thread.
+   */
+  public static String describeRunnableThreads() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long currentId = Thread.currentThread().getId();
+    StringBuilder sb = new StringBuilder();
+    for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), MAX_FRAMES))
+      if (info != null && info.getThreadId() != currentId && info.getThreadState() == Thread.State.RUNNABLE)
+        describe(info, sb);
+    return sb.toString();
+  }
+
+  private static void describe(ThreadInfo info, StringBuilder sb) {
+    sb.append('"').append(info.getThreadName()).append("\" ").append(info.getThreadState());
+    LockInfo lock = info.getLockInfo();
+    if (lock != null) {
+      sb.append(" on ").append(lock);
+      if (info.getLockOwnerName() != null)
+        sb.append(" owned by \"").append(info.getLockOwnerName()).append('"');
+    }
+    sb.append('\n');
+
+    StackTraceElement[] frames = info.getStackTrace();
+    for (int i = 0; i < frames.length && i < MAX_FRAMES; i++)
+      sb.append("\tat ").append(frames[i]).append('\n');
+    if (frames.length > MAX_FRAMES)
+      sb.append("\t...\n");
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+/**
+ * Emits diagnostic events for waiter and circuit activity. This implementation does nothing. On Java 11+ it is replaced
+ * by a multi-release variant that emits Java Flight Recorder events, allowing the Java 1.6 baseline to be retained.
+ *
+ * @author Jonathan Halterman
+ */
+public final class Events {
+  private Events() {
+  }
+
+  /**
+   * Records a resume that left {@code remainingResumes} outstanding.
+   */
+  public static void resumed(int remainingResumes) {
+  }
+
+  /**
+   * Records the start of an await, returning an event to be passed to {@link #awaitEnded}, else null if await events
+   * are not recorded.
+   */
+  public static Object awaitStarted() {
+    return null;
+  }
+
+  /**
+   * Records the end of an await that was started with {@link #awaitStarted()}.
+   */
+  public static void awaitEnded(Object event, int expectedResumes, int actualResumes, boolean timedOut) {
+  }
+
+  /**
+   * Records an await timing out.
+   */
+  public static void timedOut(int expectedResumes, int actualResumes) {
+  }
+
+  /**
+   * Records a failure via a waiter's fail or rethrow.
+   */
+  public static void failed(Throwable failure) {
+  }
+
+  /**
+   * Records a circuit being opened.
+   */
+  public static void circuitOpened() {
+  }
+
+  /**
+   * Records a circuit being closed.
+   */
+  public static void circuitClosed() {
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer ring buffer. Elements are polled in the order their slots were
+ * claimed by producers. Slots are preallocated, so offering and polling elements does not allocate.
+ *
+ * @author Jonathan Halterman
+ * @param <E> element type
+ */
+public final class MpscRingBuffer<E> {
+  private final AtomicReferenceArray<E> buffer;
+  private final int capacity;
+  private final int mask;
+  private final AtomicLong producerIndex = new AtomicLong();
+  private final AtomicLong consumerIndex = new AtomicLong();
+
+  /**
+   * Creates a ring buffer holding at least {@code capacity} elements, rounded up to the next power of two.
+   */
+  public MpscRingBuffer(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30)
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    int size = 1;
+    while (size < capacity)
+      size <<= 1;
+    this.capacity = size;
+    this.mask = size - 1;
+    this.buffer = new AtomicReferenceArray<E>(size);
+  }
+
+  /**
+   * Returns the capacity of the buffer.
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Offers the non-null {@code element} from any thread, returning false if the buffer is full.
+   */
+  public boolean offer(E element) {
+    if (element == null)
+      throw new NullPointerException("element");
+
+    for (;;) {
+      long index = producerIndex.get();
+      if (index - consumerIndex.get() >= capacity)
+        return false;
+      if (producerIndex.compareAndSet(index, index + 1)) {
+        buffer.lazySet((int) index & mask, element);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Polls the next element from the single consumer thread, returning null if the buffer is empty. If a producer has
+   * claimed the next slot but not yet published its element, waits for the element to be published.
+   */
+  public E poll() {
+    long index = consumerIndex.get();
+    int offset = (int) index & mask;
+    E element = buffer.get(offset);
+    if (element == null) {
+      if (index == producerIndex.get())
+        return null;
+      while ((element = buffer.get(offset)) == null)
+        Thread.yield();
+    }
+
+    buffer.lazySet(offset, null);
+    consumerIndex.lazySet(index + 1);
+    return element;
+  }
+
+  /**
+   * Polls all available elements into the {@code collection} from the single consumer thread, returning the number of
+   * elements drained.
+   */
+  public int drainTo(Collection<? super E> collection) {
+    int drained = 0;
+    for (E element; (element = poll()) != null; drained++)
+      collection.add(element);
+    return drained;
+  }
+
+  /**
+   * Returns the number of elements in the buffer.
+   */
+  public int size() {
+    return (int) Math.max(0, Math.min(capacity, producerIndex.get() - consumerIndex.get()));
+  }
+}
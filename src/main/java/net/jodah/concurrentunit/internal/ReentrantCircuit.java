@@ -90,6 +90,7 @@ public class ReentrantCircuit {
    */
   public void close() {
     sync.releaseShared(1);
+    Events.circuitClosed();
   }
 
   /**
@@ -112,6 +113,7 @@ public class ReentrantCircuit {
    */
   public void open() {
     sync.open();
+    Events.circuitOpened();
   }
 
   @Override
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accounts for the CPU time and allocated bytes of the threads that interact with a waiter during a single await.
+ * Every live thread is sampled when the monitor is created, so that work a thread performs before its first
+ * interaction is included. Interacting threads sample themselves on each interaction, so that the usage of threads
+ * that terminate before the await is released is not lost.
+ *
+ * @author Jonathan Halterman
+ */
+public final class ResourceMonitor {
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+  private final Map<Long, long[]> baselines = new HashMap<Long, long[]>();
+  private final ConcurrentMap<Long, long[]> samples = new ConcurrentHashMap<Long, long[]>();
+
+  /**
+   * Creates a monitor, sampling every live thread as a baseline.
+   */
+  public ResourceMonitor() {
+    for (long id : THREADS.getAllThreadIds()) {
+      long[] sample = sample(id);
+      if (sample[0] != -1 || sample[1] != -1)
+        baselines.put(id, sample);
+    }
+  }
+
+  /**
+   * Returns whether the JVM supports measuring thread CPU time, enabling the measurement if it is disabled.
+   */
+  public static boolean enableCpuTime() {
+    if (!THREADS.isThreadCpuTimeSupported())
+      return false;
+    if (!THREADS.isThreadCpuTimeEnabled())
+      THREADS.setThreadCpuTimeEnabled(true);
+    return true;
+  }
+
+  /**
+   * Records the current thread as interacting with the waiter, sampling its usage.
+   */
+  public void sample() {
+    long id = Thread.currentThread().getId();
+    samples.put(id, sample(id));
+  }
+
+  /**
+   * Returns the CPU time in nanoseconds, the allocated bytes, and the number of threads accounted for since the monitor
+   * was created. CPU time and allocated bytes are -1 if they cannot be measured.
+   */
+  public long[] totals() {
+    long cpuTime = -1;
+    long allocatedBytes = -1;
+    for (Map.Entry<Long, long[]> entry : samples.entrySet()) {
+      long[] current = sample(entry.getKey());
+      long[] last = entry.getValue();
+      long[] baseline = baselines.get(entry.getKey());
+      cpuTime = accumulate(cpuTime, current[0] != -1 ? current[0] : last[0], baseline == null ? 0 : baseline[0]);
+      allocatedBytes = accumulate(allocatedBytes, current[1] != -1 ? current[1] : last[1],
+          baseline == null ? 0 : baseline[1]);
+    }
+    return new long[] { cpuTime, allocatedBytes, samples.size() };
+  }
+
+  private static long accumulate(long total, long value, long baseline) {
+    if (value == -1 || baseline == -1)
+      return total;
+    return Math.max(total, 0) + Math.max(0, value - baseline);
+  }
+
+  private static long[] sample(long id) {
+    long cpuTime = THREADS.isThreadCpuTimeEnabled() ? THREADS.getThreadCpuTime(id) : -1;
+    long allocatedBytes = -1;
+    if (ALLOCATED_BYTES != null) {
+      try {
+        allocatedBytes = (Long) ALLOCATED_BYTES.invoke(THREADS, id);
+      } catch (Exception ignore) {
+      }
+    }
+    return new long[] { cpuTime, allocatedBytes };
+  }
+
+  /**
+   * Returns the HotSpot specific allocated bytes method, else null if it is not available.
+   */
+  private static Method allocatedBytesMethod() {
+    try {
+      Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+      if (!type.isInstance(THREADS))
+        return null;
+      Method method = type.getMethod("getThreadAllocatedBytes", long.class);
+      Method supported = type.getMethod("isThreadAllocatedMemorySupported");
+      return Boolean.TRUE.equals(supported.invoke(THREADS)) ? method : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A region of a memory-mapped file that can be atomically accessed by multiple processes. Values are stored in native
+ * byte order.
+ * <p>
+ * This implementation guards each access with a lock on the file region, since atomic operations on mapped memory are
+ * not available before Java 9. On Java 11+ it is replaced by a multi-release variant that uses lock-free
+ * {@code VarHandle} operations. Processes sharing a region should run on the same variant, since file locks do not
+ * exclude lock-free access.
+ *
+ * @author Jonathan Halterman
+ */
+public final class SharedMemory {
+  /** Identifies this variant, so that processes using different variants can detect each other. */
+  public static final int VARIANT = 1;
+  private static final ReentrantLock LOCK = new ReentrantLock();
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int size;
+
+  /**
+   * Maps the first {@code size} bytes of the {@code channel}.
+   */
+  public SharedMemory(FileChannel channel, int size) throws IOException {
+    this.channel = channel;
+    this.size = size;
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    buffer.order(ByteOrder.nativeOrder());
+  }
+
+  public long getLongVolatile(int offset) {
+    FileLock lock = lock();
+    try {
+      return buffer.getLong(offset);
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  public long getAndAddLong(int offset, long delta) {
+    FileLock lock = lock();
+    try {
+      long value = buffer.getLong(offset);
+      buffer.putLong(offset, value + delta);
+      return value;
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  public int getIntVolatile(int offset) {
+    FileLock lock = lock();
+    try {
+      return buffer.getInt(offset);
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  public void setIntVolatile(int offset, int value) {
+    FileLock lock = lock();
+    try {
+      buffer.putInt(offset, value);
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  public boolean compareAndSetInt(int offset, int expected, int value) {
+    FileLock lock = lock();
+    try {
+      if (buffer.getInt(offset) != expected)
+        return false;
+      buffer.putInt(offset, value);
+      return true;
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  /**
+   * Writes the {@code bytes} at the {@code offset}. Writes are made visible to other processes by a subsequent volatile
+   * set.
+   */
+  public void putBytes(int offset, byte[] bytes) {
+    FileLock lock = lock();
+    try {
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset);
+      view.put(bytes);
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  /**
+   * Reads {@code length} bytes at the {@code offset}. Reads should follow a volatile get that observed the bytes being
+   * published.
+   */
+  public byte[] getBytes(int offset, int length) {
+    FileLock lock = lock();
+    try {
+      byte[] bytes = new byte[length];
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset);
+      view.get(bytes);
+      return bytes;
+    } finally {
+      unlock(lock);
+    }
+  }
+
+  /**
+   * Locks the region against other threads, which would otherwise fail with an overlapping lock, and other processes.
+   */
+  private FileLock lock() {
+    LOCK.lock();
+    try {
+      return channel.lock(0, size, false);
+    } catch (IOException e) {
+      LOCK.unlock();
+      throw new IllegalStateException("Failed to lock shared memory", e);
+    } catch (RuntimeException e) {
+      LOCK.unlock();
+      throw e;
+    }
+  }
+
+  private void unlock(FileLock lock) {
+    try {
+      lock.release();
+    } catch (IOException ignore) {
+    } finally {
+      LOCK.unlock();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+/**
+ * Emits Java Flight Recorder events for waiter and circuit activity. Each event is only populated and committed when
+ * it is enabled in the current recording, so disabled events cost no more than an enabled check.
+ *
+ * @author Jonathan Halterman
+ */
+public final class Events {
+  private Events() {
+  }
+
+  /**
+   * Records a resume that left {@code remainingResumes} outstanding.
+   */
+  public static void resumed(int remainingResumes) {
+    ResumeEvent event = new ResumeEvent();
+    if (event.isEnabled()) {
+      event.remainingResumes = remainingResumes;
+      event.commit();
+    }
+  }
+
+  /**
+   * Records the start of an await, returning an event to be passed to {@link #awaitEnded}, else null if await events
+   * are not recorded.
+   */
+  public static Object awaitStarted() {
+    AwaitEvent event = new AwaitEvent();
+    if (!event.isEnabled())
+      return null;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the end of an await that was started with {@link #awaitStarted()}.
+   */
+  public static void awaitEnded(Object event, int expectedResumes, int actualResumes, boolean timedOut) {
+    if (event == null)
+      return;
+    AwaitEvent awaitEvent = (AwaitEvent) event;
+    awaitEvent.end();
+    if (awaitEvent.shouldCommit()) {
+      awaitEvent.expectedResumes = expectedResumes;
+      awaitEvent.actualResumes = actualResumes;
+      awaitEvent.timedOut = timedOut;
+      awaitEvent.commit();
+    }
+  }
+
+  /**
+   * Records an await timing out.
+   */
+  public static void timedOut(int expectedResumes, int actualResumes) {
+    TimeoutEvent event = new TimeoutEvent();
+    if (event.isEnabled()) {
+      event.expectedResumes = expectedResumes;
+      event.actualResumes = actualResumes;
+      event.commit();
+    }
+  }
+
+  /**
+   * Records a failure via a waiter's fail or rethrow.
+   */
+  public static void failed(Throwable failure) {
+    FailureEvent event = new FailureEvent();
+    if (event.isEnabled()) {
+      event.failureClass = failure.getClass();
+      event.message = failure.getMessage();
+      event.commit();
+    }
+  }
+
+  /**
+   * Records a circuit being opened.
+   */
+  public static void circuitOpened() {
+    circuitChanged(false);
+  }
+
+  /**
+   * Records a circuit being closed.
+   */
+  public static void circuitClosed() {
+    circuitChanged(true);
+  }
+
+  private static void circuitChanged(boolean closed) {
+    CircuitEvent event = new CircuitEvent();
+    if (event.isEnabled()) {
+      event.closed = closed;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A waiter was resumed.
+ *
+ * @author Jonathan Halterman
+ */
+@Name("net.jodah.concurrentunit.Resume")
+@Label("Waiter Resume")
+@Category("ConcurrentUnit")
+@Description("A waiter was resumed")
+final class ResumeEvent extends Event {
+  @Label("Remaining Resumes")
+  int remainingResumes;
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+package net.jodah.concurrentunit.internal;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A region of a memory-mapped file that can be atomically accessed by multiple processes. Values are stored in native
+ * byte order and accessed with lock-free {@code VarHandle} operations, which are atomic across processes for aligned
+ * offsets.
+ *
+ * @author Jonathan Halterman
+ */
+public final class SharedMemory {
+  /** Identifies this variant, so that processes using different variants can detect each other. */
+  public static final int VARIANT = 2;
+  private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+  private final MappedByteBuffer buffer;
+
+  /**
+   * Maps the first {@code size} bytes of the {@code channel}.
+   */
+  public SharedMemory(FileChannel channel, int size) throws IOException {
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    buffer.order(ByteOrder.nativeOrder());
+  }
+
+  public long getLongVolatile(int offset) {
+    return (long) LONGS.getVolatile(buffer, offset);
+  }
+
+  public long getAndAddLong(int offset, long delta) {
+    return (long) LONGS.getAndAdd(buffer, offset, delta);
+  }
+
+  public int getIntVolatile(int offset) {
+    return (int) INTS.getVolatile(buffer, offset);
+  }
+
+  public void setIntVolatile(int offset, int value) {
+    INTS.setVolatile(buffer, offset, value);
+  }
+
+  public boolean compareAndSetInt(int offset, int expected, int value) {
+    return INTS.compareAndSet(buffer, offset, expected, value);
+  }
+
+  /**
+   * Writes the {@code bytes} at the {@code offset}. Writes are made visible to other processes by a subsequent volatile
+   * set.
+   */
+  public void putBytes(int offset, byte[] bytes) {
+    buffer.duplicate().position(offset).put(bytes);
+  }
+
+  /**
+   * Reads {@code length} bytes at the {@code offset}. Reads should follow a volatile get that observed the bytes being
+   * published.
+   */
+  public byte[] getBytes(int offset, int length) {
+    byte[] bytes = new byte[length];
+    buffer.duplicate().position(offset).get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,119 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link LinearizabilityChecker}.
+ */
+@Test
+public class LinearizabilityCheckerTest {
+  /**
+   * A register supporting "get", "set" and "incrementAndGet", optionally partitioned by key.
+   */
+  static class RegisterModel extends SequentialModel<Integer, String[], Integer> {
+    final boolean partitioned;
+
+    RegisterModel(boolean partitioned) {
+      this.partitioned = partitioned;
+    }
+
+    @Override
+    public Integer initialState() {
+      return 0;
+    }
+
+    @Override
+    public Integer step(Integer state, String[] input, Integer output) {
+      if ("get".equals(input[0]))
+        return state.equals(output) ? state : null;
+      if ("set".equals(input[0]))
+        return Integer.valueOf(input[1]);
+      return output.equals(state + 1) ? output : null;
+    }
+
+    @Override
+    public Object partition(String[] input) {
+      return partitioned ? input[input.length - 1] : null;
+    }
+  }
+
+  static String[] op(String... args) {
+    return args;
+  }
+
+  public void shouldAcceptSequentialHistory() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    history.invoke(op("set", "1")).respond(null);
+    history.invoke(op("get")).respond(1);
+    history.invoke(op("incrementAndGet")).respond(2);
+
+    assertTrue(LinearizabilityChecker.isLinearizable(new RegisterModel(false), history));
+  }
+
+  public void shouldRejectStaleRead() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    history.invoke(op("set", "1")).respond(null);
+    history.invoke(op("get")).respond(0);
+
+    assertFalse(LinearizabilityChecker.isLinearizable(new RegisterModel(false), history));
+  }
+
+  public void shouldAcceptOverlappingOperationsInEitherOrder() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    History.Call<String[], Integer> set = history.invoke(op("set", "1"));
+    History.Call<String[], Integer> get = history.invoke(op("get"));
+    get.respond(0);
+    set.respond(null);
+
+    assertTrue(LinearizabilityChecker.isLinearizable(new RegisterModel(false), history));
+  }
+
+  public void shouldCheckPartitionsIndependently() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    history.invoke(op("set", "1", "a")).respond(null);
+    history.invoke(op("get", "b")).respond(0);
+    history.invoke(op("get", "a")).respond(1);
+
+    assertTrue(LinearizabilityChecker.isLinearizable(new RegisterModel(true), history));
+    assertFalse(LinearizabilityChecker.isLinearizable(new RegisterModel(false), history));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldRejectPendingOperations() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    history.invoke(op("get"));
+    LinearizabilityChecker.isLinearizable(new RegisterModel(false), history);
+  }
+
+  public void shouldAcceptConcurrentAtomicIncrements() throws Throwable {
+    final Waiter waiter = new Waiter();
+    final History<String[], Integer> history = new History<String[], Integer>();
+    final AtomicInteger counter = new AtomicInteger();
+
+    for (int t = 0; t < 4; t++)
+      new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < 50; i++)
+            history.invoke(op("incrementAndGet")).respond(counter.incrementAndGet());
+          waiter.resume();
+        }
+      }).start();
+
+    waiter.await(5000, 4);
+    waiter.assertLinearizable(new RegisterModel(false), history);
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldFailWaiterForNonLinearizableHistory() {
+    History<String[], Integer> history = new History<String[], Integer>();
+    history.invoke(op("incrementAndGet")).respond(1);
+    history.invoke(op("incrementAndGet")).respond(1);
+
+    new Waiter().assertLinearizable(new RegisterModel(false), history);
+  }
+}
@@ -0,0 +1,121 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link LoadDriver}.
+ */
+@Test
+public class LoadDriverTest {
+  ExecutorService executor;
+
+  @BeforeMethod
+  protected void beforeMethod() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    executor.shutdownNow();
+  }
+
+  public void shouldCompleteAllOperations() throws Throwable {
+    LoadDriver.Report report = LoadDriver.constantRate(1000, executor).run(100, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        call.complete();
+      }
+    }, 5, TimeUnit.SECONDS);
+
+    assertEquals(report.getExpectedOperations(), 100);
+    assertEquals(report.getIssuedOperations(), 100);
+    assertEquals(report.getCompletedOperations(), 100);
+  }
+
+  public void shouldSupportPoissonArrivals() throws Throwable {
+    LoadDriver.Report report = LoadDriver.poissonRate(1000, executor).run(100, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        call.complete();
+      }
+    }, 5, TimeUnit.SECONDS);
+
+    assertEquals(report.getCompletedOperations(), 100);
+  }
+
+  /**
+   * Asserts that operations delayed behind a stall are charged for the time spent waiting to be issued.
+   */
+  public void shouldCorrectForCoordinatedOmission() throws Throwable {
+    LoadDriver.Report report = LoadDriver.constantRate(100, executor).run(20, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) throws Exception {
+        if (call.getIndex() == 0)
+          Thread.sleep(500);
+        call.complete();
+      }
+    }, 5, TimeUnit.SECONDS);
+
+    assertTrue(report.getLatency(90, TimeUnit.MILLISECONDS) >= 300);
+    assertTrue(report.getServiceTime(90, TimeUnit.MILLISECONDS) < 300);
+  }
+
+  public void shouldIgnoreRepeatedCompletions() throws Throwable {
+    LoadDriver.Report report = LoadDriver.constantRate(1000, executor).run(4, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        call.complete();
+        call.complete();
+      }
+    }, 5, TimeUnit.SECONDS);
+
+    assertEquals(report.getIssuedOperations(), 4);
+    assertEquals(report.getCompletedOperations(), 4);
+  }
+
+  public void shouldReturnEmptyReportForZeroOperations() throws Throwable {
+    LoadDriver.Report report = LoadDriver.constantRate(1000, executor).run(0, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        call.complete();
+      }
+    }, 0, TimeUnit.SECONDS);
+
+    assertEquals(report.getExpectedOperations(), 0);
+    assertEquals(report.getCompletedOperations(), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectNegativeOperations() throws Throwable {
+    LoadDriver.constantRate(1000, executor).run(-1, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        call.complete();
+      }
+    }, 5, TimeUnit.SECONDS);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldRethrowOperationFailures() throws Throwable {
+    LoadDriver.constantRate(1000, executor).run(10, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) throws Exception {
+        throw new IOException();
+      }
+    }, 5, TimeUnit.SECONDS);
+  }
+
+  @Test(expectedExceptions = TimeoutException.class)
+  public void shouldTimeoutWhenOperationsAreOutstanding() throws Throwable {
+    LoadDriver.constantRate(1000, executor).run(10, new LoadDriver.Operation() {
+      public void perform(LoadDriver.Call call) {
+        if (call.getIndex() != 5)
+          call.complete();
+      }
+    }, 200, TimeUnit.MILLISECONDS);
+  }
+}
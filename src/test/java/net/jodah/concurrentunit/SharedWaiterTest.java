@@ -0,0 +1,142 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link SharedWaiter}.
+ */
+@Test
+public class SharedWaiterTest {
+  File file;
+  SharedWaiter waiter;
+
+  @BeforeMethod
+  protected void beforeMethod() throws Exception {
+    file = File.createTempFile("shared-waiter", ".bin");
+    waiter = new SharedWaiter(file);
+  }
+
+  @AfterMethod
+  protected void afterMethod() throws Exception {
+    waiter.close();
+    file.delete();
+  }
+
+  /**
+   * Resumes or fails the waiter for the file at args[0], depending on args[1], from a forked process.
+   */
+  static class ChildProcess {
+    public static void main(String[] args) throws Exception {
+      SharedWaiter child = new SharedWaiter(new File(args[0]));
+      try {
+        if ("fail".equals(args[1]))
+          child.fail("child failure");
+        else
+          for (int i = 0; i < 3; i++)
+            child.resume();
+      } catch (AssertionError expected) {
+      } finally {
+        child.close();
+      }
+    }
+  }
+
+  public void shouldBeResumedByAnotherWaiterOnTheSameFile() throws Throwable {
+    final SharedWaiter other = new SharedWaiter(file);
+    new Thread(new Runnable() {
+      public void run() {
+        for (int i = 0; i < 3; i++)
+          other.resume();
+      }
+    }).start();
+
+    waiter.await(1000, 3);
+    other.close();
+  }
+
+  public void shouldHandleResumesThenAwait() throws Throwable {
+    SharedWaiter other = new SharedWaiter(file);
+    other.resume();
+    other.close();
+    waiter.await(1000, 1);
+  }
+
+  @Test(expectedExceptions = TimeoutException.class)
+  public void shouldTimeout() throws Throwable {
+    waiter.await(50, 1);
+  }
+
+  public void shouldPropagateFailuresOnce() throws Throwable {
+    SharedWaiter other = new SharedWaiter(file);
+    try {
+      other.fail(new IllegalStateException("boom"));
+      fail();
+    } catch (AssertionError expected) {
+    }
+
+    try {
+      waiter.await(1000, 1);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().contains("IllegalStateException: boom"));
+    }
+
+    other.resume();
+    other.close();
+    waiter.await(1000, 1);
+  }
+
+  /**
+   * Asserts that a file marked by a different shared memory variant is rejected.
+   */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldRejectFileSharedByOtherVariant() throws Throwable {
+    File other = File.createTempFile("shared-waiter", ".bin");
+    try {
+      RandomAccessFile raf = new RandomAccessFile(other, "rw");
+      try {
+        raf.setLength(4096);
+        raf.seek(16);
+        raf.writeInt(0x7F7F7F7F);
+      } finally {
+        raf.close();
+      }
+      new SharedWaiter(other);
+    } finally {
+      other.delete();
+    }
+  }
+
+  public void shouldBeResumedByForkedProcess() throws Throwable {
+    assertEquals(fork("resume").waitFor(), 0);
+    waiter.await(10, TimeUnit.SECONDS, 3);
+  }
+
+  public void shouldBeFailedByForkedProcess() throws Throwable {
+    Process process = fork("fail");
+    try {
+      waiter.await(10, TimeUnit.SECONDS, 1);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().contains("child failure"));
+    }
+    process.waitFor();
+  }
+
+  private Process fork(String action) throws Exception {
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ChildProcess.class.getName(),
+        file.getAbsolutePath(), action).redirectErrorStream(true).start();
+  }
+}
@@ -0,0 +1,195 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link SubscriberProbe}.
+ */
+@Test
+public class SubscriberProbeTest {
+  ExecutorService executor;
+
+  @BeforeMethod
+  protected void beforeMethod() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Publishes {@code count} integers asynchronously, honoring demand unless {@code ignoreDemand}, then completes or
+   * fails with the {@code error}.
+   */
+  Publisher<Integer> range(final int count, final boolean ignoreDemand, final Throwable error) {
+    return new Publisher<Integer>() {
+      public void subscribe(final Subscriber<? super Integer> subscriber) {
+        final AtomicLong demand = new AtomicLong();
+        final AtomicLong next = new AtomicLong();
+        final Runnable drain = new Runnable() {
+          public void run() {
+            while (next.get() < count && (ignoreDemand || demand.get() > 0)) {
+              demand.decrementAndGet();
+              subscriber.onNext((int) next.getAndIncrement());
+            }
+            if (next.get() == count) {
+              next.incrementAndGet();
+              if (error == null)
+                subscriber.onComplete();
+              else
+                subscriber.onError(error);
+            }
+          }
+        };
+
+        subscriber.onSubscribe(new Subscription() {
+          public void request(long n) {
+            demand.addAndGet(n);
+            executor.execute(drain);
+          }
+
+          public void cancel() {
+          }
+        });
+      }
+    };
+  }
+
+  public void shouldReceiveItemsOnDemand() throws Throwable {
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(1024);
+    range(100000, false, null).subscribe(probe);
+
+    for (int i = 0; i < 100000; i += 1000) {
+      probe.request(1000);
+      List<Integer> items = probe.awaitNext(1000, 5, TimeUnit.SECONDS);
+      assertEquals(items.get(0).intValue(), i);
+      assertEquals(items.get(999).intValue(), i + 999);
+    }
+
+    probe.awaitComplete(5, TimeUnit.SECONDS);
+    assertEquals(probe.getReceivedCount(), 100000);
+  }
+
+  public void shouldRequestWhenSubscribed() throws Throwable {
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(16);
+    probe.request(3);
+    range(3, false, null).subscribe(probe);
+
+    assertEquals(probe.awaitNext(3, 5, TimeUnit.SECONDS).size(), 3);
+    probe.awaitComplete(5, TimeUnit.SECONDS);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldRethrowErrors() throws Throwable {
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(16);
+    range(1, false, new IOException()).subscribe(probe);
+    probe.request(1);
+    probe.awaitComplete(5, TimeUnit.SECONDS);
+  }
+
+  public void shouldFailWhenDemandIsExceeded() throws Throwable {
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(16);
+    range(10, true, null).subscribe(probe);
+    probe.request(1);
+
+    try {
+      probe.awaitNext(10, 5, TimeUnit.SECONDS);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().contains("beyond the requested demand"));
+    }
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldFailWhenCompletedBeforeExpectedItems() throws Throwable {
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(16);
+    range(2, false, null).subscribe(probe);
+    probe.request(5);
+    probe.awaitNext(5, 5, TimeUnit.SECONDS);
+  }
+
+  public void shouldNotResumeSuppliedWaiter() throws Throwable {
+    Waiter waiter = new Waiter();
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(waiter, 16);
+    range(3, false, null).subscribe(probe);
+    probe.request(3);
+    assertEquals(probe.awaitNext(3, 5, TimeUnit.SECONDS).size(), 3);
+    probe.awaitComplete(5, TimeUnit.SECONDS);
+
+    try {
+      waiter.await(50);
+      fail();
+    } catch (TimeoutException expected) {
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldReportErrorsToSuppliedWaiter() throws Throwable {
+    Waiter waiter = new Waiter();
+    SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(waiter, 16);
+    range(0, false, new IOException()).subscribe(probe);
+    probe.request(1);
+    waiter.await(5000);
+  }
+
+  /**
+   * Asserts that a request made while the initial request is in progress does not overlap it.
+   */
+  public void shouldNotOverlapRequests() throws Throwable {
+    final SubscriberProbe<Integer> probe = new SubscriberProbe<Integer>(16);
+    final AtomicBoolean requesting = new AtomicBoolean();
+    final AtomicBoolean overlapped = new AtomicBoolean();
+    final CountDownLatch initialRequest = new CountDownLatch(1);
+    probe.request(1);
+
+    executor.execute(new Runnable() {
+      public void run() {
+        probe.onSubscribe(new Subscription() {
+          public void request(long n) {
+            if (!requesting.compareAndSet(false, true))
+              overlapped.set(true);
+            initialRequest.countDown();
+            try {
+              Thread.sleep(100);
+            } catch (InterruptedException e) {
+            }
+            requesting.set(false);
+          }
+
+          public void cancel() {
+          }
+        });
+      }
+    });
+
+    initialRequest.await();
+    probe.request(1);
+    assertTrue(!overlapped.get());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldRejectRequestsBeyondBufferCapacity() {
+    new SubscriberProbe<Integer>(16).request(17);
+  }
+}
@@ -0,0 +1,134 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link Waiter#wrap(ExecutorService)}.
+ */
+@Test
+public class WaiterExecutorServiceTest {
+  Waiter waiter;
+  ExecutorService executor;
+
+  @BeforeMethod
+  protected void beforeMethod() {
+    waiter = new Waiter();
+    executor = waiter.wrap(Executors.newFixedThreadPool(4));
+  }
+
+  @AfterMethod
+  protected void afterMethod() {
+    executor.shutdownNow();
+  }
+
+  public void shouldAwaitSubmittedAndExecutedTasks() throws Throwable {
+    final AtomicInteger count = new AtomicInteger();
+    Runnable task = new Runnable() {
+      public void run() {
+        count.incrementAndGet();
+      }
+    };
+
+    for (int i = 0; i < 50; i++) {
+      executor.execute(task);
+      executor.submit(task);
+    }
+
+    waiter.awaitTasks(5, TimeUnit.SECONDS);
+    assertEquals(count.get(), 100);
+  }
+
+  public void shouldReturnResultsFromSubmittedTasks() throws Throwable {
+    Future<String> future = executor.submit(new Callable<String>() {
+      public String call() {
+        return "foo";
+      }
+    });
+
+    waiter.awaitTasks(5, TimeUnit.SECONDS);
+    assertEquals(future.get(), "foo");
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldRethrowTaskFailures() throws Throwable {
+    executor.submit(new Callable<Object>() {
+      public Object call() throws Exception {
+        throw new IOException();
+      }
+    });
+
+    waiter.awaitTasks(5, TimeUnit.SECONDS);
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldRethrowAssertionFailuresFromExecutedTasks() throws Throwable {
+    executor.execute(new Runnable() {
+      public void run() {
+        waiter.assertTrue(false);
+      }
+    });
+
+    waiter.awaitTasks(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Asserts that a failed assertion is recorded once, and is not recorded again after the await has thrown it.
+   */
+  public void shouldNotRecordAssertionFailuresTwice() throws Throwable {
+    WaiterMetrics metrics = new WaiterMetrics();
+    waiter.addListener(metrics);
+    Future<?> future = executor.submit(new Runnable() {
+      public void run() {
+        waiter.assertTrue(false);
+      }
+    });
+
+    try {
+      waiter.awaitTasks(5, TimeUnit.SECONDS);
+      fail();
+    } catch (AssertionError expected) {
+    }
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof AssertionError);
+    }
+
+    assertEquals(metrics.getFailures(), 1);
+    waiter.resume();
+    waiter.await(1000);
+  }
+
+  public void shouldReturnImmediatelyWithoutTasks() throws Throwable {
+    waiter.awaitTasks(5, TimeUnit.SECONDS);
+  }
+
+  @Test(expectedExceptions = TimeoutException.class)
+  public void shouldTimeoutWhenTasksAreIncomplete() throws Throwable {
+    executor.submit(new Callable<Object>() {
+      public Object call() throws Exception {
+        Thread.sleep(5000);
+        return null;
+      }
+    });
+
+    waiter.awaitTasks(50, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,137 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link WaiterMetrics} and {@link WaiterListener} dispatch.
+ */
+@Test
+public class WaiterMetricsTest {
+  Waiter waiter;
+  WaiterMetrics metrics;
+
+  @BeforeMethod
+  protected void beforeMethod() {
+    waiter = new Waiter();
+    metrics = new WaiterMetrics();
+    waiter.addListener(metrics);
+  }
+
+  public void shouldRecordResumesAndReleases() throws Throwable {
+    Thread resumer = new Thread(new Runnable() {
+      public void run() {
+        for (int i = 0; i < 3; i++)
+          waiter.resume();
+      }
+    });
+    resumer.start();
+
+    waiter.await(1000, 3);
+    resumer.join();
+
+    assertEquals(metrics.getAwaits(), 1);
+    assertEquals(metrics.getResumes(), 3);
+    assertEquals(metrics.getReleases(), 1);
+    assertEquals(metrics.getFailures(), 0);
+    assertEquals(metrics.getTimeouts(), 0);
+  }
+
+  public void shouldRecordFailures() throws Throwable {
+    Thread failer = new Thread(new Runnable() {
+      public void run() {
+        waiter.fail("test");
+      }
+    });
+    failer.start();
+
+    try {
+      waiter.await(1000);
+      fail();
+    } catch (AssertionError expected) {
+    }
+    failer.join();
+
+    assertEquals(metrics.getFailures(), 1);
+    assertEquals(metrics.getReleases(), 0);
+  }
+
+  public void shouldRecordTimeouts() throws Throwable {
+    try {
+      waiter.await(50);
+      fail();
+    } catch (TimeoutException expected) {
+    }
+
+    assertEquals(metrics.getTimeouts(), 1);
+    assertTrue(metrics.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 50);
+    assertTrue(metrics.getTotalWaitTime(TimeUnit.MILLISECONDS) >= 50);
+  }
+
+  public void shouldRecordStallsAsFailures() throws Throwable {
+    waiter.detectStalls(100, TimeUnit.MILLISECONDS);
+    try {
+      waiter.await(5000);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().startsWith("No resume progress"));
+    }
+
+    assertEquals(metrics.getAwaits(), 1);
+    assertEquals(metrics.getFailures(), 1);
+    assertEquals(metrics.getReleases(), 0);
+    assertEquals(metrics.getTimeouts(), 0);
+  }
+
+  /**
+   * Asserts that a listener that throws does not prevent a failure from releasing an await.
+   */
+  public void shouldReleaseAwaitWhenListenerThrows() throws Throwable {
+    waiter.addListener(new WaiterMetrics() {
+      @Override
+      public void failed(Waiter waiter, Throwable failure) {
+        throw new IllegalStateException();
+      }
+    });
+
+    try {
+      waiter.fail("test");
+    } catch (AssertionError expected) {
+    }
+
+    long start = System.currentTimeMillis();
+    try {
+      waiter.await(1000);
+      fail();
+    } catch (AssertionError expected) {
+    }
+    assertTrue(System.currentTimeMillis() - start < 500);
+    assertEquals(metrics.getFailures(), 1);
+  }
+
+  public void shouldStopNotifyingRemovedListeners() throws Throwable {
+    waiter.removeListener(metrics);
+    waiter.resume();
+    waiter.await();
+
+    assertEquals(metrics.getAwaits(), 0);
+    assertEquals(metrics.getResumes(), 0);
+  }
+
+  public void shouldReset() throws Throwable {
+    waiter.resume();
+    waiter.await();
+    metrics.reset();
+
+    assertEquals(metrics.getAwaits(), 0);
+    assertEquals(metrics.getResumes(), 0);
+    assertEquals(metrics.getReleases(), 0);
+  }
+}
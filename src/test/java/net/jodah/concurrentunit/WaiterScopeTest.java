@@ -0,0 +1,209 @@
+package net.jodah.concurrentunit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link WaiterScope}.
+ */
+@Test
+public class WaiterScopeTest {
+  static Runnable sleeper(final CountDownLatch started) {
+    return new Runnable() {
+      public void run() {
+        started.countDown();
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+        }
+      }
+    };
+  }
+
+  public void shouldJoinForkedSubtasks() throws Throwable {
+    final AtomicInteger count = new AtomicInteger();
+    WaiterScope scope = new Waiter().scope();
+    try {
+      for (int i = 0; i < 10000; i++)
+        scope.fork(new Runnable() {
+          public void run() {
+            count.incrementAndGet();
+          }
+        });
+      scope.join(10, TimeUnit.SECONDS);
+    } finally {
+      scope.close();
+    }
+
+    assertEquals(count.get(), 10000);
+  }
+
+  public void shouldSupportSuppliedExecutor() throws Throwable {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    WaiterScope scope = new Waiter().scope(executor);
+    try {
+      Future<String> future = scope.fork(new Callable<String>() {
+        public String call() {
+          return "foo";
+        }
+      });
+      scope.join(5, TimeUnit.SECONDS);
+      assertEquals(future.get(), "foo");
+    } finally {
+      scope.close();
+    }
+
+    assertTrue(!executor.isShutdown());
+    executor.shutdown();
+  }
+
+  public void shouldCancelRemainingSubtasksOnFailure() throws Throwable {
+    WaiterScope scope = new Waiter().scope();
+    CountDownLatch started = new CountDownLatch(1);
+    Future<?> sleeping = scope.fork(sleeper(started));
+    started.await();
+    Future<?> failing = scope.fork(new Callable<Object>() {
+      public Object call() throws Exception {
+        throw new IOException();
+      }
+    });
+
+    try {
+      scope.join(5, TimeUnit.SECONDS);
+      fail();
+    } catch (Throwable e) {
+      assertTrue(e instanceof IOException);
+    } finally {
+      scope.close();
+    }
+
+    assertTrue(sleeping.isCancelled());
+    assertTrue(!failing.isCancelled());
+    try {
+      failing.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  /**
+   * Asserts that closing a scope waits for cancelled subtasks that are slow to respond to interruption.
+   */
+  public void shouldWaitForCancelledSubtasksOnClose() throws Throwable {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean finished = new AtomicBoolean();
+    WaiterScope scope = new Waiter().scope(executor);
+    scope.fork(new Runnable() {
+      public void run() {
+        started.countDown();
+        try {
+          Thread.sleep(10000);
+        } catch (InterruptedException e) {
+          long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+          while (System.nanoTime() < end)
+            ;
+          finished.set(true);
+        }
+      }
+    });
+
+    started.await();
+    scope.close();
+    assertTrue(finished.get());
+    executor.shutdown();
+  }
+
+  public void shouldUseCreatingWaitersListeners() throws Throwable {
+    Waiter waiter = new Waiter();
+    WaiterMetrics metrics = new WaiterMetrics();
+    waiter.addListener(metrics);
+    WaiterScope scope = waiter.scope();
+    try {
+      for (int i = 0; i < 3; i++)
+        scope.fork(new Runnable() {
+          public void run() {
+          }
+        });
+      scope.join(5, TimeUnit.SECONDS);
+    } finally {
+      scope.close();
+    }
+
+    assertTrue(metrics.getAwaits() >= 1);
+    assertEquals(metrics.getResumes(), 3);
+  }
+
+  public void shouldCancelRemainingSubtasksOnTimeout() throws Throwable {
+    WaiterScope scope = new Waiter().scope();
+    CountDownLatch started = new CountDownLatch(1);
+    Future<?> sleeping = scope.fork(sleeper(started));
+
+    try {
+      scope.join(50, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException expected) {
+    } finally {
+      scope.close();
+    }
+
+    assertTrue(sleeping.isCancelled());
+  }
+
+  /**
+   * Asserts that subtasks cancelled by a timed out join do not release a later join early.
+   */
+  public void shouldJoinAgainAfterJoinTimeout() throws Throwable {
+    WaiterScope scope = new Waiter().scope();
+    try {
+      CountDownLatch started = new CountDownLatch(3);
+      for (int i = 0; i < 3; i++)
+        scope.fork(sleeper(started));
+      started.await();
+      try {
+        scope.join(50, TimeUnit.MILLISECONDS);
+        fail();
+      } catch (TimeoutException expected) {
+      }
+
+      Future<?> future = scope.fork(new Runnable() {
+        public void run() {
+          try {
+            Thread.sleep(500);
+          } catch (InterruptedException e) {
+          }
+        }
+      });
+      scope.join(5, TimeUnit.SECONDS);
+      assertTrue(future.isDone());
+    } finally {
+      scope.close();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldRejectForksAfterClose() {
+    WaiterScope scope = new Waiter().scope();
+    scope.close();
+    scope.fork(new Runnable() {
+      public void run() {
+      }
+    });
+  }
+}
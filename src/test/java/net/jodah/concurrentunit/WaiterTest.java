@@ -5,8 +5,14 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.testng.annotations.Test;
 
@@ -250,4 +256,299 @@ public class WaiterTest {
     w.resume();
     w.await();
   }
+
+  public void shouldFailAwaitOnDeadlock() throws Throwable {
+    final Waiter w = new Waiter();
+    w.detectDeadlocks(50, TimeUnit.MILLISECONDS);
+    final ReentrantLock a = new ReentrantLock();
+    final ReentrantLock b = new ReentrantLock();
+    final CountDownLatch locked = new CountDownLatch(2);
+    Thread t1 = new Thread(new Runnable() {
+      public void run() {
+        lockBoth(a, b, locked);
+      }
+    });
+    Thread t2 = new Thread(new Runnable() {
+      public void run() {
+        lockBoth(b, a, locked);
+      }
+    });
+    t1.start();
+    t2.start();
+
+    long start = System.currentTimeMillis();
+    try {
+      w.await(10000);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().startsWith("Deadlock detected"));
+      assertTrue(System.currentTimeMillis() - start < 5000);
+    } finally {
+      t1.interrupt();
+      t2.interrupt();
+      t1.join();
+      t2.join();
+    }
+  }
+
+  public void shouldFailAwaitOnStall() throws Throwable {
+    final Waiter w = new Waiter();
+    w.detectStalls(100, TimeUnit.MILLISECONDS);
+    w.resume();
+
+    long start = System.currentTimeMillis();
+    try {
+      w.await(10000, 2);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().startsWith("No resume progress"));
+      assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+  }
+
+  public void shouldNotFailAwaitWhileResumesProgress() throws Throwable {
+    final Waiter w = new Waiter();
+    w.detectStalls(200, TimeUnit.MILLISECONDS);
+
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          for (int i = 0; i < 5; i++) {
+            Thread.sleep(100);
+            w.resume();
+          }
+        } catch (InterruptedException e) {
+        }
+      }
+    }).start();
+
+    w.await(5000, 5);
+  }
+
+  public void shouldCaptureValuesInArrivalOrder() throws Throwable {
+    final Waiter w = new Waiter();
+
+    new Thread(new Runnable() {
+      public void run() {
+        for (int i = 0; i < 5; i++)
+          w.resumeWith(i);
+      }
+    }).start();
+
+    List<Integer> values = w.awaitValues(1000, 5);
+    w.assertEqualsInOrder(Arrays.asList(0, 1, 2, 3, 4), values);
+  }
+
+  public void shouldCaptureValuesFromMultipleThreads() throws Throwable {
+    final Waiter w = new Waiter(16);
+
+    for (int i = 0; i < 10; i++) {
+      final String value = i % 2 == 0 ? "even" : null;
+      new Thread(new Runnable() {
+        public void run() {
+          w.resumeWith(value);
+        }
+      }).start();
+    }
+
+    List<String> values = w.awaitValues(1000, 10);
+    w.assertEqualsInAnyOrder(Arrays.asList("even", "even", "even", "even", "even", null, null, null, null, null),
+        values);
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldFailWhenValueCapacityIsExceeded() throws Throwable {
+    final Waiter w = new Waiter(2);
+
+    new Thread(new Runnable() {
+      public void run() {
+        for (int i = 0; i < 3; i++)
+          w.resumeWith(i);
+      }
+    }).start();
+
+    w.awaitValues(1000, 3);
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldFailUnorderedAssertionWithMissingValue() {
+    new Waiter().assertEqualsInAnyOrder(Arrays.asList(1, 2, 2), Arrays.asList(2, 1, 1));
+  }
+
+  @Test(expectedExceptions = AssertionError.class)
+  public void shouldFailOrderedAssertionWithReorderedValues() {
+    new Waiter().assertEqualsInOrder(Arrays.asList(1, 2), Arrays.asList(2, 1));
+  }
+
+  public void shouldSupportInOrderSequencesPerKey() throws Throwable {
+    final Waiter w = new Waiter();
+
+    for (int k = 0; k < 3; k++) {
+      final String key = "key" + k;
+      new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < 10; i++)
+            w.resume(key, i);
+        }
+      }).start();
+    }
+
+    w.await(1000, 30);
+  }
+
+  public void shouldFailOnDuplicateSequence() throws Throwable {
+    final Waiter w = new Waiter();
+
+    new Thread(new Runnable() {
+      public void run() {
+        w.resume("a", 0);
+        w.resume("a", 1);
+        w.resume("a", 1);
+      }
+    }).start();
+
+    try {
+      w.await(1000, 5);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().startsWith("Duplicate delivery for key a, sequence: 1"));
+    }
+  }
+
+  public void shouldFailOnOutOfOrderSequence() throws Throwable {
+    final Waiter w = new Waiter();
+
+    new Thread(new Runnable() {
+      public void run() {
+        w.resume("a", 0);
+        w.resume("b", 0);
+        w.resume("a", 2);
+      }
+    }).start();
+
+    try {
+      w.await(1000, 5);
+      fail();
+    } catch (AssertionError e) {
+      assertTrue(e.getMessage().startsWith("Out of order delivery for key a, sequence: 2, expectedSequence: 1"));
+    }
+  }
+
+  public void shouldResetSequences() throws Throwable {
+    Waiter w = new Waiter();
+    w.resume("a", 0);
+    w.await();
+    w.resetSequences();
+    w.resume("a", 0);
+    w.await();
+  }
+
+  /**
+   * Asserts that the work a resuming thread performs after the await is armed is accounted for.
+   */
+  public void shouldAccountResourcesOfResumingThreads() throws Throwable {
+    final Waiter w = new Waiter();
+    w.accountResources(true);
+    final List<byte[]> allocations = new ArrayList<byte[]>();
+
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          Thread.sleep(100);
+          for (int i = 0; i < 10; i++)
+            allocations.add(new byte[1024 * 1024]);
+          long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+          while (System.nanoTime() < end)
+            ;
+        } catch (InterruptedException e) {
+        }
+        w.resume();
+      }
+    }).start();
+
+    w.await(5000);
+    ResourceUsage usage = w.getResourceUsage();
+    assertEquals(usage.getThreadCount(), 2);
+    if (usage.getAllocatedBytes() != -1)
+      assertTrue(usage.getAllocatedBytes() >= 10 * 1024 * 1024);
+    if (usage.getCpuTime(TimeUnit.MILLISECONDS) != -1)
+      assertTrue(usage.getCpuTime(TimeUnit.MILLISECONDS) >= 20);
+  }
+
+  public void shouldIncludeResourceUsageInTimeoutMessage() throws Throwable {
+    Waiter w = new Waiter();
+    w.accountResources(true);
+    try {
+      w.await(50);
+      fail();
+    } catch (TimeoutException e) {
+      assertTrue(e.getMessage().contains("allocatedBytes: "));
+      assertEquals(w.getResourceUsage().getThreadCount(), 1);
+    }
+  }
+
+  public void shouldAccountResourcesOfAssertingThreads() throws Throwable {
+    final Waiter w = new Waiter();
+    w.accountResources(true);
+    final CountDownLatch asserted = new CountDownLatch(1);
+
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+        }
+        w.assertTrue(true);
+        asserted.countDown();
+      }
+    }).start();
+
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          asserted.await();
+        } catch (InterruptedException e) {
+        }
+        w.resume();
+      }
+    }).start();
+
+    w.await(5000);
+    assertEquals(w.getResourceUsage().getThreadCount(), 3);
+  }
+
+  public void shouldResetResourceUsageWhenAccountingIsDisabled() throws Throwable {
+    Waiter w = new Waiter();
+    w.accountResources(true);
+    w.resume();
+    w.await();
+    assertTrue(w.getResourceUsage() != null);
+
+    w.accountResources(false);
+    w.resume();
+    w.await();
+    assertEquals(w.getResourceUsage(), null);
+  }
+
+  public void shouldNotAccountResourcesByDefault() throws Throwable {
+    Waiter w = new Waiter();
+    w.resume();
+    w.await();
+    assertEquals(w.getResourceUsage(), null);
+  }
+
+  static void lockBoth(ReentrantLock first, ReentrantLock second, CountDownLatch locked) {
+    try {
+      first.lockInterruptibly();
+      try {
+        locked.countDown();
+        locked.await();
+        second.lockInterruptibly();
+        second.unlock();
+      } finally {
+        first.unlock();
+      }
+    } catch (InterruptedException e) {
+    }
+  }
 }
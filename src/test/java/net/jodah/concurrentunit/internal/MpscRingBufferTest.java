@@ -0,0 +1,61 @@
+package net.jodah.concurrentunit.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+@Test
+public class MpscRingBufferTest {
+  public void shouldRoundCapacityToPowerOfTwo() {
+    assertEquals(new MpscRingBuffer<Object>(1).capacity(), 1);
+    assertEquals(new MpscRingBuffer<Object>(5).capacity(), 8);
+    assertEquals(new MpscRingBuffer<Object>(8).capacity(), 8);
+  }
+
+  public void shouldRejectOffersWhenFull() {
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<Integer>(2);
+    assertTrue(buffer.offer(1));
+    assertTrue(buffer.offer(2));
+    assertFalse(buffer.offer(3));
+    assertEquals(buffer.poll(), Integer.valueOf(1));
+    assertTrue(buffer.offer(3));
+    assertEquals(buffer.poll(), Integer.valueOf(2));
+    assertEquals(buffer.poll(), Integer.valueOf(3));
+    assertNull(buffer.poll());
+  }
+
+  public void shouldDrainElementsFromMultipleProducers() throws Throwable {
+    final MpscRingBuffer<Integer> buffer = new MpscRingBuffer<Integer>(4096);
+    List<Thread> producers = new ArrayList<Thread>();
+    for (int p = 0; p < 4; p++) {
+      final int producer = p;
+      Thread t = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < 1000; i++)
+            buffer.offer(producer * 1000 + i);
+        }
+      });
+      producers.add(t);
+      t.start();
+    }
+    for (Thread t : producers)
+      t.join();
+
+    List<Integer> drained = new ArrayList<Integer>();
+    assertEquals(buffer.drainTo(drained), 4000);
+    assertEquals(buffer.size(), 0);
+
+    // Elements from each producer should be drained in the order they were offered
+    int[] last = { -1, -1, -1, -1 };
+    for (int element : drained) {
+      assertTrue(element % 1000 > last[element / 1000]);
+      last[element / 1000] = element % 1000;
+    }
+  }
+}
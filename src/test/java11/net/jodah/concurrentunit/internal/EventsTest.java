@@ -0,0 +1,67 @@
+package net.jodah.concurrentunit.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.jodah.concurrentunit.Waiter;
+
+/**
+ * Tests the Flight Recorder {@link Events}.
+ */
+@Test
+public class EventsTest {
+  static final String[] EVENTS = { "Resume", "Await", "Timeout", "Failure", "Circuit" };
+
+  public void shouldRecordEvents() throws Throwable {
+    Path file = Files.createTempFile("concurrentunit", ".jfr");
+    Set<String> recorded = new HashSet<String>();
+    try (Recording recording = new Recording()) {
+      for (String event : EVENTS)
+        recording.enable("net.jodah.concurrentunit." + event);
+      recording.start();
+
+      Waiter waiter = new Waiter();
+      waiter.resume();
+      waiter.await(1000);
+      try {
+        waiter.await(10);
+      } catch (Exception expected) {
+      }
+      try {
+        waiter.fail("test");
+      } catch (AssertionError expected) {
+      }
+      try {
+        waiter.await(1000);
+      } catch (AssertionError expected) {
+      }
+
+      recording.stop();
+      recording.dump(file);
+      for (RecordedEvent event : RecordingFile.readAllEvents(file))
+        recorded.add(event.getEventType().getName());
+    } finally {
+      Files.delete(file);
+    }
+
+    for (String event : EVENTS)
+      assertTrue(recorded.contains("net.jodah.concurrentunit." + event), event + " was not recorded");
+  }
+
+  /**
+   * Asserts that the Java 11 variant of the shared memory is used, so that it is covered by the SharedWaiter tests.
+   */
+  public void shouldUseVarHandleSharedMemory() throws Throwable {
+    assertEquals(SharedMemory.class.getDeclaredField("LONGS").getType().getName(), "java.lang.invoke.VarHandle");
+  }
+}